@@ -0,0 +1,48 @@
+package com.auth.benchmark;
+
+import com.auth.entity.User;
+import com.auth.service.JwtKeyRing;
+import com.auth.service.JwtService;
+import com.auth.service.VerifiedTokenCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the services under benchmark without a Spring context, wired the same
+ * way the application configures them.
+ */
+final class Benchmarks {
+
+    static final String SECRET = "your-super-secret-jwt-key-that-should-be-at-least-256-bits-long";
+
+    private Benchmarks() {
+    }
+
+    static JwtService jwtService(String algorithm, boolean cacheEnabled) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "accessTokenValidity", 900L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenValidity", 604800L);
+        ReflectionTestUtils.setField(jwtService, "issuer", "authentication-service");
+        ReflectionTestUtils.setField(jwtService, "keyRing",
+                new JwtKeyRing(SECRET, algorithm, 900, 604800, List.of(), new ObjectMapper()));
+        ReflectionTestUtils.setField(jwtService, "tokenCache",
+                new VerifiedTokenCache(cacheEnabled, 10_000, new SimpleMeterRegistry()));
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("unused");
+        user.setRoles(Set.of("ROLE_USER", "ROLE_ADMIN"));
+        user.setEmailVerified(true);
+        return user;
+    }
+}
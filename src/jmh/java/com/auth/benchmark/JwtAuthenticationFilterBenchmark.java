@@ -0,0 +1,84 @@
+package com.auth.benchmark;
+
+import com.auth.config.JwtAuthenticationFilter;
+import com.auth.controller.AuthController;
+import com.auth.entity.User;
+import com.auth.service.JwtService;
+import com.auth.service.TokenIntrospectionService;
+import com.auth.service.VerifiedClaims;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures JwtAuthenticationFilter.doFilterInternal with its collaborators mocked,
+ * and the forward-auth path (filter plus GET /auth/verify). Sample mode reports
+ * the latency distribution, including p99.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+
+    private AuthController authController;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        User user = Benchmarks.user();
+        JwtService realJwtService = Benchmarks.jwtService("HMAC", true);
+        String token = realJwtService.generateAccessToken(user);
+        VerifiedClaims claims = realJwtService.verify(token);
+
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.isStatelessPrincipal()).thenReturn(statelessPrincipal);
+        TokenIntrospectionService introspectionService = mock(TokenIntrospectionService.class);
+        when(introspectionService.validateAccessToken(token)).thenReturn(claims);
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(user);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenIntrospectionService", introspectionService);
+
+        authController = new AuthController();
+        authorization = "Bearer " + token;
+    }
+
+    @Benchmark
+    public MockHttpServletRequest doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/me");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return request;
+    }
+
+    @Benchmark
+    public Object forwardAuth() throws ServletException, IOException {
+        MockHttpServletRequest request = doFilter();
+        return authController.verify((VerifiedClaims) request.getAttribute(VerifiedClaims.REQUEST_ATTRIBUTE));
+    }
+}
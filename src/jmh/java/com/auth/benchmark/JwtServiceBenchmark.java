@@ -0,0 +1,55 @@
+package com.auth.benchmark;
+
+import com.auth.entity.User;
+import com.auth.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    @Param({"HMAC", "RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private JwtService jwtService;
+
+    private User user;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = Benchmarks.jwtService(algorithm, cacheEnabled);
+        user = Benchmarks.user();
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public Object verify() {
+        return jwtService.verify(token);
+    }
+}
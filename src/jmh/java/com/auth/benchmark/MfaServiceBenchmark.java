@@ -0,0 +1,35 @@
+package com.auth.benchmark;
+
+import com.auth.service.MfaService;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.exceptions.CodeGenerationException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MfaServiceBenchmark {
+
+    private MfaService mfaService;
+
+    private String secret;
+
+    private String code;
+
+    @Setup
+    public void setUp() throws CodeGenerationException {
+        mfaService = new MfaService();
+        secret = mfaService.generateSecret();
+        code = new DefaultCodeGenerator().generate(secret, System.currentTimeMillis() / 30_000);
+    }
+
+    @Benchmark
+    public boolean verifyCode() {
+        return mfaService.verifyCode(code, secret);
+    }
+}
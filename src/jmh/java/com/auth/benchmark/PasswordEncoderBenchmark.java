@@ -0,0 +1,40 @@
+package com.auth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "SecurePass123!";
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
@@ -1,6 +1,9 @@
 package com.auth.config;
 
 import com.auth.service.JwtService;
+import com.auth.service.TokenIntrospectionService;
+import com.auth.service.UserPrincipal;
+import com.auth.service.VerifiedClaims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +13,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -25,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -32,21 +39,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        // Signature, expiry and revocation are checked once here; everything below reads the result
+        final VerifiedClaims claims = tokenIntrospectionService.validateAccessToken(authHeader.substring(7));
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                UserDetails userDetails = jwtService.isStatelessPrincipal() ? UserPrincipal.fromClaims(claims) : null;
+                if (userDetails == null) {
+                    userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+                }
 
-            if (jwtService.validateToken(jwt, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -54,6 +62,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(VerifiedClaims.REQUEST_ATTRIBUTE, claims);
+            } catch (UsernameNotFoundException e) {
+                // Token is valid but its user no longer exists; continue unauthenticated
             }
         }
 
@@ -0,0 +1,42 @@
+package com.auth.config;
+
+import com.auth.service.PasswordHashingExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs the expensive operations of a delegate encoder on the
+ * {@link PasswordHashingExecutor} instead of the calling request thread.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the wrapped encoder, for callers that bring their own threads.
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
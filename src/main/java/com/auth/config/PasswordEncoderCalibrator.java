@@ -0,0 +1,131 @@
+package com.auth.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Builds the application's password encoder. New hashes use the configured
+ * algorithm with a cost chosen at startup by timing this host, so a single hash
+ * takes about {@code app.auth.password.hashing.target-latency} milliseconds but
+ * never less than the library's recommended minimum. Only BCrypt and Argon2 are
+ * calibrated, because their hashes record their own cost. A PBKDF2 hash does not
+ * record its iteration count, so PBKDF2 always uses the fixed
+ * {@code app.auth.password.hashing.pbkdf2-iterations}, and every instance must
+ * share that value. Stored hashes of any supported algorithm, including the
+ * unprefixed BCrypt hashes written before this encoder existed, keep verifying and
+ * are flagged for upgrade.
+ */
+@Component
+public class PasswordEncoderCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "Calibration-Pa55word!";
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
+    // Argon2id memory cost in KiB and minimum passes, per Spring Security's defaults
+    private static final int ARGON2_MEMORY = 1 << 14;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 64;
+
+    private static final int MIN_PBKDF2_ITERATIONS = 310_000;
+
+    @Value("${app.auth.password.hashing.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${app.auth.password.hashing.target-latency:50}")
+    private long targetLatencyMillis;
+
+    @Value("${app.auth.password.hashing.calibrate:true}")
+    private boolean calibrate;
+
+    @Value("${app.auth.password.hashing.pbkdf2-iterations:310000}")
+    private int pbkdf2Iterations;
+
+    public PasswordEncoder createEncoder() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength());
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", argon2Encoder(argon2Iterations()));
+        encoders.put("pbkdf2", pbkdf2Encoder(pbkdf2Iterations()));
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported app.auth.password.hashing.algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    private int bcryptStrength() {
+        if (!calibrate || !"bcrypt".equals(algorithm)) {
+            return MIN_BCRYPT_STRENGTH;
+        }
+        // Each step doubles the cost, so stop at the first strength that reaches the target
+        int strength = calibrateStepwise(MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH, BCryptPasswordEncoder::new);
+        log.info("Calibrated BCrypt strength {} for a {} ms target", strength, targetLatencyMillis);
+        return strength;
+    }
+
+    private int argon2Iterations() {
+        if (!calibrate || !"argon2".equals(algorithm)) {
+            return MIN_ARGON2_ITERATIONS;
+        }
+        int iterations = calibrateStepwise(MIN_ARGON2_ITERATIONS, MAX_ARGON2_ITERATIONS, this::argon2Encoder);
+        log.info("Calibrated Argon2id to {} iterations for a {} ms target", iterations, targetLatencyMillis);
+        return iterations;
+    }
+
+    private int pbkdf2Iterations() {
+        // Never calibrated: the count is not stored in the hash, so it must not change between boots or hosts
+        if (pbkdf2Iterations < MIN_PBKDF2_ITERATIONS) {
+            throw new IllegalStateException("app.auth.password.hashing.pbkdf2-iterations must be at least "
+                    + MIN_PBKDF2_ITERATIONS);
+        }
+        return pbkdf2Iterations;
+    }
+
+    private int calibrateStepwise(int min, int max, IntFunction<PasswordEncoder> factory) {
+        int cost = min;
+        while (cost < max && measureMillis(factory.apply(cost)) < targetLatencyMillis) {
+            cost++;
+        }
+        return cost;
+    }
+
+    private Argon2PasswordEncoder argon2Encoder(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY, iterations);
+    }
+
+    private Pbkdf2PasswordEncoder pbkdf2Encoder(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private static double measureMillis(PasswordEncoder encoder) {
+        // First call warms up the code path; the best of the next runs filters out noise
+        encoder.encode(SAMPLE_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the reader pool and
+ * everything else, including statements outside a transaction, to the writer.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is only chosen once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String WRITER = "writer";
+    private static final String READER = "reader";
+
+    private final HikariDataSource writer;
+
+    private final HikariDataSource reader;
+
+    public ReadWriteRoutingDataSource(HikariDataSource writer, HikariDataSource reader) {
+        this.writer = writer;
+        this.reader = reader;
+        setTargetDataSources(Map.of(WRITER, writer, READER, reader));
+        setDefaultTargetDataSource(writer);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? READER : WRITER;
+    }
+
+    @Override
+    public void destroy() {
+        reader.close();
+        writer.close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.auth.config;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.dialect.unique.AlterTableUniqueIndexDelegate;
+import org.hibernate.dialect.unique.UniqueDelegate;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.spi.SQLExceptionConversionDelegate;
+import org.hibernate.internal.util.JdbcExceptionHelper;
+
+/**
+ * {@link SQLiteDialect} that creates unique {@code @Index}es as
+ * {@code create unique index}. The stock dialect emits
+ * {@code alter table ... add constraint}, which SQLite does not support, so the
+ * index was silently never created. Violations are reported as
+ * {@link ConstraintViolationException}, which Spring translates to
+ * {@code DataIntegrityViolationException}; the stock dialect leaves them generic.
+ */
+public class SQLiteUniqueIndexDialect extends SQLiteDialect {
+
+    private static final int SQLITE_CONSTRAINT = 19;
+
+    private final UniqueDelegate uniqueDelegate = new AlterTableUniqueIndexDelegate(this);
+
+    public SQLiteUniqueIndexDialect() {
+        super();
+    }
+
+    public SQLiteUniqueIndexDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public UniqueDelegate getUniqueDelegate() {
+        return uniqueDelegate;
+    }
+
+    @Override
+    public SQLExceptionConversionDelegate buildSQLExceptionConversionDelegate() {
+        SQLExceptionConversionDelegate delegate = super.buildSQLExceptionConversionDelegate();
+        return (sqlException, message, sql) -> {
+            // The low byte is the primary code, so extended codes like SQLITE_CONSTRAINT_UNIQUE match too
+            if ((JdbcExceptionHelper.extractErrorCode(sqlException) & 0xFF) == SQLITE_CONSTRAINT) {
+                return new ConstraintViolationException(message, sqlException, sql, null);
+            }
+            return delegate.convert(sqlException, message, sql);
+        };
+    }
+}
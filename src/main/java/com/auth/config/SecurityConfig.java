@@ -1,19 +1,26 @@
 package com.auth.config;
 
+import com.auth.service.CustomUserDetailsService;
 import com.auth.service.JwtService;
+import com.auth.service.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -21,6 +28,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -30,11 +38,56 @@ public class SecurityConfig {
     private JwtService jwtService;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
 
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private PasswordEncoderCalibrator passwordEncoderCalibrator;
+
+    /**
+     * Token introspection (RFC 7662) only answers registered resource servers.
+     * They authenticate with HTTP Basic client credentials from
+     * {@code app.auth.introspection.clients}, whose secrets are stored as
+     * {@code {bcrypt}}, {@code {argon2}} or {@code {pbkdf2}} hashes. With no
+     * clients configured every caller is refused.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain introspectionFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        http
+                .securityMatcher("/auth/introspect/**")
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("INTROSPECTION"))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationManager(introspectionAuthenticationManager(environment));
+
+        return http.build();
+    }
+
+    private AuthenticationManager introspectionAuthenticationManager(Environment environment) {
+        Map<String, String> clients = Binder.get(environment)
+                .bind("app.auth.introspection.clients", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        InMemoryUserDetailsManager clientDetails = new InMemoryUserDetailsManager();
+        clients.forEach((clientId, secretHash) -> clientDetails.createUser(
+                org.springframework.security.core.userdetails.User.withUsername(clientId)
+                        .password(secretHash)
+                        .roles("INTROSPECTION")
+                        .build()));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(clientDetails);
+        provider.setPasswordEncoder(passwordEncoder());
+        return new ProviderManager(provider);
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -42,10 +95,15 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints
-                        .requestMatchers("/auth/login", "/auth/signup", "/auth/refresh").permitAll()
+                        .requestMatchers("/auth/login", "/auth/signup", "/auth/availability", "/auth/refresh").permitAll()
                         .requestMatchers("/auth/email/verify/request", "/auth/email/verify/confirm").permitAll()
                         .requestMatchers("/auth/password/forgot", "/auth/password/reset").permitAll()
                         .requestMatchers("/auth/oauth/**").permitAll()
+                        // Authenticated by the MFA challenge token in the request instead
+                        .requestMatchers("/auth/mfa/challenge").permitAll()
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        // Answers 401 itself, without a body, for reverse-proxy auth_request
+                        .requestMatchers("/auth/verify").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
                         .requestMatchers("/error").permitAll()
@@ -53,6 +111,7 @@ public class SecurityConfig {
                         .requestMatchers("/auth/logout", "/auth/revoke", "/auth/me", "/auth/session").authenticated()
                         .requestMatchers("/auth/mfa/**").authenticated()
                         .requestMatchers("/user/**").authenticated()
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -81,6 +140,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hashes the password on login when its stored hash uses outdated parameters
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -91,6 +152,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Password hashing is CPU/memory-bound (BCrypt, Argon2, PBKDF2); keep it off the servlet threads
+        return new OffloadingPasswordEncoder(passwordEncoderCalibrator.createEncoder(), passwordHashingExecutor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.auth.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * SQLite connection setup for production, enabled by the {@code prod} profile.
+ *
+ * <p>SQLite allows one writer at a time, so all write transactions share a single
+ * connection and queue for it in the pool instead of failing with SQLITE_BUSY.
+ * In WAL mode readers never block that writer, so read-only transactions are
+ * served from a separate pool of {@code query_only} connections. With
+ * {@code synchronous=NORMAL} commits are appended to the WAL without an fsync
+ * and become durable together at the next checkpoint, which acts as group commit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.sqlite.read-write-split", havingValue = "true")
+public class SqliteDataSourceConfig {
+
+    @Value("${app.datasource.sqlite.reader-pool-size:0}")
+    private int readerPoolSize;
+
+    @Value("${app.datasource.sqlite.journal-mode:WAL}")
+    private String journalMode;
+
+    @Value("${app.datasource.sqlite.synchronous:NORMAL}")
+    private String synchronous;
+
+    @Value("${app.datasource.sqlite.busy-timeout:5000}")
+    private int busyTimeout;
+
+    @Value("${app.datasource.sqlite.cache-size:-65536}")
+    private int cacheSize;
+
+    @Value("${app.datasource.sqlite.mmap-size:268435456}")
+    private long mmapSize;
+
+    @Value("${app.datasource.sqlite.writer-timeout:30000}")
+    private long writerTimeout;
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties properties) {
+        int readers = readerPoolSize > 0 ? readerPoolSize : Runtime.getRuntime().availableProcessors();
+        // The writer is created first so the database and its WAL exist before readers connect
+        HikariDataSource writer = pool(properties, "sqlite-writer", 1, false);
+        HikariDataSource reader = pool(properties, "sqlite-reader", readers, true);
+        return new ReadWriteRoutingDataSource(writer, reader);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, String name, int size, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(properties.determineUrl());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(size);
+        config.setConnectionTimeout(writerTimeout);
+        // Applied by the SQLite driver to every new connection
+        config.addDataSourceProperty("journal_mode", journalMode);
+        config.addDataSourceProperty("synchronous", synchronous);
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        config.addDataSourceProperty("cache_size", String.valueOf(cacheSize));
+        config.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        if (readOnly) {
+            config.setConnectionInitSql("PRAGMA query_only = true");
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,126 @@
+package com.auth.controller;
+
+import com.auth.service.UserExportService;
+import com.auth.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/admin/users")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.auth.user-export.max-list-limit:1000}")
+    private int maxListLimit;
+
+    /**
+     * One page of users in id order. Pass {@code nextAfterId} of a response as
+     * {@code afterId} to get the next page; it is null on the last one.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listUsers(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Set<String> include) {
+        if (limit < 1 || limit > maxListLimit) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "limit must be between 1 and " + maxListLimit);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        List<Map<String, Object>> users = userExportService.listUsers(afterId, limit,
+                include != null ? include : Set.of());
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", users);
+        response.put("nextAfterId", users.size() < limit ? null : users.get(users.size() - 1).get("id"));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams every user as NDJSON, one line per user in id order, for warehouse
+     * syncs. {@code include} may name {@code oauthProviders} and {@code sessions}.
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public void exportUsers(@RequestParam(required = false) Set<String> include,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        userExportService.exportUsers(include != null ? include : Set.of(), user -> {
+            try {
+                writeLine(out, user);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * Bulk-creates users from a CSV or NDJSON body, streamed in as it is read.
+     * The response is NDJSON: a line per rejected record, a checkpoint line per
+     * committed chunk and a final summary. Resend from the last checkpoint with
+     * {@code skip} to resume.
+     */
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public void importUsers(@RequestParam(defaultValue = "0") long skip,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        UserImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        try (Reader input = new InputStreamReader(request.getInputStream(), charset)) {
+            Map<String, Object> summary = userImportService.importUsers(input, format, skip, event -> {
+                try {
+                    writeLine(out, event);
+                    // Checkpoints reach the client as soon as their chunk is committed
+                    if (event.containsKey("checkpoint")) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeLine(out, summary);
+        }
+        out.flush();
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,34 @@
+package com.auth.controller;
+
+import com.auth.service.LoginThrottledException;
+import com.auth.service.PasswordHashingSaturatedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingSaturatedException.class)
+    public ResponseEntity<Map<String, String>> handlePasswordHashingSaturated(PasswordHashingSaturatedException e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Map<String, String>> handleLoginThrottled(LoginThrottledException e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+}
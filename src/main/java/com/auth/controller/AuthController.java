@@ -4,9 +4,13 @@ import com.auth.dto.AuthResponse;
 import com.auth.dto.LoginRequest;
 import com.auth.dto.SignupRequest;
 import com.auth.service.AuthService;
+import com.auth.service.CustomUserDetailsService;
+import com.auth.service.VerifiedClaims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -22,9 +26,13 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
+        AuthResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
@@ -34,6 +42,20 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cheap pre-check for signup forms: which of the given email and username are
+     * still free. Signup itself does not depend on it.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String username) {
+        if (email == null && username == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(authService.checkAvailability(email, username));
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refreshToken(@RequestParam String refreshToken) {
         AuthResponse response = authService.refreshToken(refreshToken);
@@ -41,8 +63,10 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout(@RequestParam String refreshToken) {
-        authService.logout(refreshToken);
+    public ResponseEntity<Map<String, String>> logout(@RequestParam String refreshToken,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.logout(refreshToken, accessToken);
         Map<String, String> response = new HashMap<>();
         response.put("message", "Successfully logged out");
         return ResponseEntity.ok(response);
@@ -50,7 +74,7 @@ public class AuthController {
 
     @PostMapping("/revoke")
     public ResponseEntity<Map<String, String>> revokeAllTokens(Authentication authentication) {
-        Long userId = Long.parseLong(authentication.getName());
+        Long userId = userDetailsService.getUserId(authentication);
         authService.revokeAllTokens(userId);
         Map<String, String> response = new HashMap<>();
         response.put("message", "All tokens revoked successfully");
@@ -61,16 +85,42 @@ public class AuthController {
     public ResponseEntity<AuthResponse.UserDto> getCurrentUser(Authentication authentication) {
         // The user details are already available from the JWT token
         // This endpoint just returns the current user info
-        if (authentication != null && authentication.getPrincipal() instanceof com.auth.entity.User) {
-            com.auth.entity.User user = (com.auth.entity.User) authentication.getPrincipal();
+        if (authentication != null) {
+            com.auth.entity.User user = userDetailsService.loadUser(authentication);
             AuthResponse.UserDto userDto = convertToUserDto(user);
             return ResponseEntity.ok(userDto);
         }
         return ResponseEntity.badRequest().build();
     }
 
+    /**
+     * Forward-auth endpoint for nginx {@code auth_request} and Envoy ext_authz.
+     * Relies on the claims already verified by the JWT filter and answers with
+     * headers only.
+     */
+    @GetMapping("/verify")
+    public ResponseEntity<Void> verify(
+            @RequestAttribute(name = VerifiedClaims.REQUEST_ATTRIBUTE, required = false) VerifiedClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String userId = claims.getUserIdHeader();
+        if (userId != null) {
+            response.header("X-User-Id", userId);
+        }
+        return response
+                .header("X-User-Email", claims.getSubject())
+                .header("X-User-Roles", claims.getRolesHeader())
+                .build();
+    }
+
     @GetMapping("/session")
     public ResponseEntity<Map<String, Object>> getSessionInfo(Authentication authentication,
+            @RequestAttribute(name = VerifiedClaims.REQUEST_ATTRIBUTE, required = false) VerifiedClaims claims,
             HttpServletRequest request) {
         Map<String, Object> sessionInfo = new HashMap<>();
 
@@ -78,6 +128,11 @@ public class AuthController {
             sessionInfo.put("authenticated", true);
             sessionInfo.put("user", authentication.getName());
             sessionInfo.put("authorities", authentication.getAuthorities());
+            if (claims != null) {
+                sessionInfo.put("issuer", claims.getIssuer());
+                sessionInfo.put("issuedAt", claims.getIssuedAt());
+                sessionInfo.put("expiresAt", claims.getExpiresAt());
+            }
         } else {
             sessionInfo.put("authenticated", false);
         }
@@ -0,0 +1,84 @@
+package com.auth.controller;
+
+import com.auth.dto.IntrospectionRequest;
+import com.auth.service.TokenIntrospectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/auth/introspect")
+@CrossOrigin(origins = "*")
+public class IntrospectionController {
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    // Results are written in chunks of this size so the first lines reach the client early
+    private static final int STREAM_CHUNK_SIZE = 64;
+
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.auth.introspection.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${app.auth.introspection.max-stream-size:10000}")
+    private int maxStreamSize;
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> introspectBatch(@Valid @RequestBody IntrospectionRequest request) {
+        if (request.getTokens().size() > maxBatchSize) {
+            return tooManyTokens(maxBatchSize);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", tokenIntrospectionService.introspect(request.getTokens()));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/batch", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> introspectBatchStream(
+            @Valid @RequestBody IntrospectionRequest request) {
+        List<String> tokens = request.getTokens();
+        if (tokens.size() > maxStreamSize) {
+            Map<String, Object> error = tooManyTokens(maxStreamSize).getBody();
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                    .body(out -> out.write(objectMapper.writeValueAsBytes(error)));
+        }
+
+        // One result per line, in request order
+        StreamingResponseBody body = (OutputStream out) -> {
+            for (int from = 0; from < tokens.size(); from += STREAM_CHUNK_SIZE) {
+                List<String> chunk = tokens.subList(from, Math.min(from + STREAM_CHUNK_SIZE, tokens.size()));
+                for (Map<String, Object> result : tokenIntrospectionService.introspect(chunk)) {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    private ResponseEntity<Map<String, Object>> tooManyTokens(int limit) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Too many tokens, at most " + limit + " are allowed per request");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+}
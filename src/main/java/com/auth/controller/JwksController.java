@@ -0,0 +1,39 @@
+package com.auth.controller;
+
+import com.auth.service.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@CrossOrigin(origins = "*")
+public class JwksController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getJwks(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        // The body and ETag are precomputed by the key ring whenever it rotates
+        String eTag = keyRing.getJwksETag();
+        CacheControl cacheControl = CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic();
+
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(keyRing.getJwksJson());
+    }
+}
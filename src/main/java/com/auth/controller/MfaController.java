@@ -1,9 +1,12 @@
 package com.auth.controller;
 
+import com.auth.dto.AuthResponse;
 import com.auth.entity.User;
 import com.auth.repository.UserRepository;
 import com.auth.service.AuthService;
+import com.auth.service.CustomUserDetailsService;
 import com.auth.service.MfaService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -28,9 +31,12 @@ public class MfaController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     @PostMapping("/setup")
     public ResponseEntity<Map<String, Object>> setupMfa(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = userDetailsService.loadUser(authentication);
 
         String secret = mfaService.generateSecret();
         String qrCodeUrl = mfaService.getQrCodeUrl(secret, user.getEmail(), "Authentication Service");
@@ -49,23 +55,8 @@ public class MfaController {
             @RequestParam @NotBlank String code,
             @RequestParam @NotBlank String secret) {
 
-        User user = (User) authentication.getPrincipal();
-
-        if (!mfaService.verifyCode(code, secret)) {
-            throw new RuntimeException("Invalid MFA code");
-        }
-
-        // Enable MFA for user
-        user.setMfaEnabled(true);
-        user.setMfaSecret(secret);
-
-        // Generate backup codes
-        Set<String> backupCodes = mfaService.generateBackupCodes();
-        user.setMfaBackupCodes(backupCodes);
-
-        // Save user (this would be done through a service method in a real
-        // implementation)
-        userRepository.save(user);
+        Set<String> backupCodes = authService.completeMfaSetup(
+                userDetailsService.getUserId(authentication), code, secret);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "MFA setup completed successfully");
@@ -76,16 +67,7 @@ public class MfaController {
 
     @PostMapping("/enable")
     public ResponseEntity<Map<String, String>> enableMfa(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-
-        if (user.getMfaSecret() == null) {
-            throw new RuntimeException("MFA not set up. Please set up MFA first.");
-        }
-
-        user.setMfaEnabled(true);
-        // Save user (this would be done through a service method in a real
-        // implementation)
-        userRepository.save(user);
+        authService.enableMfa(userDetailsService.getUserId(authentication));
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "MFA enabled successfully");
@@ -97,18 +79,7 @@ public class MfaController {
             Authentication authentication,
             @RequestParam @NotBlank String code) {
 
-        User user = (User) authentication.getPrincipal();
-
-        if (!mfaService.verifyCode(code, user.getMfaSecret())) {
-            throw new RuntimeException("Invalid MFA code");
-        }
-
-        user.setMfaEnabled(false);
-        user.setMfaSecret(null);
-        user.setMfaBackupCodes(null);
-        // Save user (this would be done through a service method in a real
-        // implementation)
-        userRepository.save(user);
+        authService.disableMfa(userDetailsService.getUserId(authentication), code);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "MFA disabled successfully");
@@ -116,14 +87,13 @@ public class MfaController {
     }
 
     @PostMapping("/challenge")
-    public ResponseEntity<Map<String, String>> challengeMfa(
-            @RequestParam @NotBlank String email,
-            @RequestParam @NotBlank String code) {
+    public ResponseEntity<AuthResponse> challengeMfa(
+            @RequestParam @NotBlank String mfaToken,
+            @RequestParam @NotBlank String code,
+            HttpServletRequest request) {
 
-        // This endpoint would be used during login when MFA is required
-        // For now, we'll return a simple response
-        Map<String, String> response = new HashMap<>();
-        response.put("message", "MFA challenge completed");
+        // Second step of an MFA login; the password was checked when mfaToken was issued
+        AuthResponse response = authService.completeMfaLogin(mfaToken, code, request.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
@@ -132,18 +102,13 @@ public class MfaController {
             Authentication authentication,
             @RequestParam @NotBlank String backupCode) {
 
-        User user = (User) authentication.getPrincipal();
+        Long userId = userDetailsService.getUserId(authentication);
 
-        if (!mfaService.verifyBackupCode(backupCode, user.getMfaBackupCodes())) {
+        // Deleting the code is the check, so one code cannot be spent twice
+        if (userRepository.deleteMfaBackupCode(userId, backupCode) != 1) {
             throw new RuntimeException("Invalid backup code");
         }
-
-        // Remove used backup code
-        Set<String> updatedBackupCodes = mfaService.removeUsedBackupCode(backupCode, user.getMfaBackupCodes());
-        user.setMfaBackupCodes(updatedBackupCodes);
-        // Save user (this would be done through a service method in a real
-        // implementation)
-        userRepository.save(user);
+        userRepository.findEmailById(userId).ifPresent(userDetailsService::evict);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "Backup code used successfully");
@@ -152,7 +117,7 @@ public class MfaController {
 
     @GetMapping("/backup-codes")
     public ResponseEntity<Map<String, Object>> getBackupCodes(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = userDetailsService.loadUserWithMfaBackupCodes(authentication);
 
         if (!user.isMfaEnabled()) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -1,5 +1,6 @@
 package com.auth.controller;
 
+import com.auth.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -13,6 +14,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class OAuthController {
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     @GetMapping("/{provider}")
     public ResponseEntity<Map<String, String>> redirectToProvider(@PathVariable String provider) {
         // This would typically redirect to the OAuth provider
@@ -71,8 +75,8 @@ public class OAuthController {
             @RequestParam String provider,
             @RequestParam String accessToken) {
 
-        if (authentication != null && authentication.getPrincipal() instanceof com.auth.entity.User) {
-            com.auth.entity.User user = (com.auth.entity.User) authentication.getPrincipal();
+        if (authentication != null) {
+            Long userId = userDetailsService.getUserId(authentication);
 
             // This would link the OAuth provider to the existing user account
             // user.getOauthProviders().add(provider);
@@ -81,7 +85,7 @@ public class OAuthController {
             Map<String, String> response = new HashMap<>();
             response.put("message", "OAuth provider linked successfully");
             response.put("provider", provider);
-            response.put("userId", user.getId().toString());
+            response.put("userId", userId.toString());
 
             return ResponseEntity.ok(response);
         }
@@ -94,8 +98,8 @@ public class OAuthController {
             Authentication authentication,
             @RequestParam String provider) {
 
-        if (authentication != null && authentication.getPrincipal() instanceof com.auth.entity.User) {
-            com.auth.entity.User user = (com.auth.entity.User) authentication.getPrincipal();
+        if (authentication != null) {
+            Long userId = userDetailsService.getUserId(authentication);
 
             // This would unlink the OAuth provider from the user account
             // user.getOauthProviders().remove(provider);
@@ -104,7 +108,7 @@ public class OAuthController {
             Map<String, String> response = new HashMap<>();
             response.put("message", "OAuth provider unlinked successfully");
             response.put("provider", provider);
-            response.put("userId", user.getId().toString());
+            response.put("userId", userId.toString());
 
             return ResponseEntity.ok(response);
         }
@@ -1,6 +1,7 @@
 package com.auth.controller;
 
 import com.auth.service.AuthService;
+import com.auth.service.CustomUserDetailsService;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,9 @@ public class PasswordController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     @PostMapping("/forgot")
     public ResponseEntity<Map<String, String>> requestPasswordReset(@RequestParam @Email String email) {
         authService.requestPasswordReset(email);
@@ -43,7 +47,7 @@ public class PasswordController {
             @RequestParam @NotBlank String currentPassword,
             @RequestParam @NotBlank String newPassword) {
 
-        Long userId = Long.parseLong(authentication.getName());
+        Long userId = userDetailsService.getUserId(authentication);
         authService.changePassword(userId, currentPassword, newPassword);
         Map<String, String> response = new HashMap<>();
         response.put("message", "Password changed successfully");
@@ -1,11 +1,11 @@
 package com.auth.controller;
 
 import com.auth.entity.User;
-import com.auth.repository.UserRepository;
+import com.auth.service.AuthService;
+import com.auth.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -17,15 +17,15 @@ import java.util.Map;
 public class UserController {
 
     @Autowired
-    private UserRepository userRepository;
+    private AuthService authService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private CustomUserDetailsService userDetailsService;
 
     @GetMapping("/me")
     public ResponseEntity<Map<String, Object>> getCurrentUser(Authentication authentication) {
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            User user = (User) authentication.getPrincipal();
+        if (authentication != null) {
+            User user = userDetailsService.loadUserWithOauthProviders(authentication);
 
             Map<String, Object> userInfo = new HashMap<>();
             userInfo.put("id", user.getId());
@@ -54,20 +54,9 @@ public class UserController {
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) String profileImageUrl) {
 
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            User user = (User) authentication.getPrincipal();
-
-            if (firstName != null) {
-                user.setFirstName(firstName);
-            }
-            if (lastName != null) {
-                user.setLastName(lastName);
-            }
-            if (profileImageUrl != null) {
-                user.setProfileImageUrl(profileImageUrl);
-            }
-
-            userRepository.save(user);
+        if (authentication != null) {
+            authService.updateProfile(userDetailsService.getUserId(authentication),
+                    firstName, lastName, profileImageUrl);
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Profile updated successfully");
@@ -83,25 +72,8 @@ public class UserController {
             @RequestParam String newEmail,
             @RequestParam String password) {
 
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            User user = (User) authentication.getPrincipal();
-
-            // Verify current password
-            if (!passwordEncoder.matches(password, user.getPassword())) {
-                throw new RuntimeException("Current password is incorrect");
-            }
-
-            // Check if new email is already taken
-            if (userRepository.existsByEmail(newEmail)) {
-                throw new RuntimeException("Email already taken");
-            }
-
-            // Update email and mark as unverified
-            user.setEmail(newEmail);
-            user.setEmailVerified(false);
-            user.setEmailVerifiedAt(null);
-
-            userRepository.save(user);
+        if (authentication != null) {
+            authService.changeEmail(userDetailsService.getUserId(authentication), newEmail, password);
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Email changed successfully. Please verify your new email.");
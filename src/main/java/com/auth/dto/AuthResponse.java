@@ -11,6 +11,7 @@ public class AuthResponse {
     private UserDto user;
     private boolean mfaRequired;
     private String mfaSetupUrl;
+    private String mfaToken;
 
     public AuthResponse() {
     }
@@ -85,6 +86,14 @@ public class AuthResponse {
         this.mfaSetupUrl = mfaSetupUrl;
     }
 
+    public String getMfaToken() {
+        return mfaToken;
+    }
+
+    public void setMfaToken(String mfaToken) {
+        this.mfaToken = mfaToken;
+    }
+
     // User DTO inner class
     public static class UserDto {
         private Long id;
@@ -0,0 +1,20 @@
+package com.auth.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class IntrospectionRequest {
+
+    @NotEmpty(message = "At least one token is required")
+    private List<String> tokens;
+
+    // Getters and Setters
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
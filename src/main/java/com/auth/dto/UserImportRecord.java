@@ -0,0 +1,80 @@
+package com.auth.dto;
+
+/**
+ * One user of a bulk import, read from a CSV row or an NDJSON line. Carries
+ * either a plain {@code password}, which is hashed on import, or a
+ * {@code passwordHash} in a format the password encoder can verify.
+ */
+public class UserImportRecord {
+
+    private String username;
+
+    private String email;
+
+    private String password;
+
+    private String passwordHash;
+
+    private String firstName;
+
+    private String lastName;
+
+    private boolean emailVerified;
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+
+    public void setEmailVerified(boolean emailVerified) {
+        this.emailVerified = emailVerified;
+    }
+}
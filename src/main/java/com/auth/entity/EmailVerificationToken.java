@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 public class EmailVerificationToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(unique = true, nullable = false)
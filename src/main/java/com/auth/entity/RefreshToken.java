@@ -5,17 +5,17 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_token", columnList = "token"),
         @Index(name = "idx_user_id", columnList = "user_id")
 })
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
-    @Column(unique = true, nullable = false)
-    private String token;
+    // SHA-256 of the secret half of "<id>.<secret>"; looked up by id, never by hash
+    @Column(nullable = false)
+    private String tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -49,12 +49,12 @@ public class RefreshToken {
         this.id = id;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenHash() {
+        return tokenHash;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public User getUser() {
@@ -0,0 +1,18 @@
+package com.auth.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@code @Id} whose value is assigned by {@link TimeOrderedIdGenerator}
+ * before the insert, so Hibernate can batch inserts of the entity.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,30 +12,39 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "users", indexes = {
         @Index(name = "idx_email", columnList = "email"),
-        @Index(name = "idx_username", columnList = "username")
+        @Index(name = "idx_username", columnList = "username"),
+        // Unique indexes rather than constraints: the SQLite dialect cannot add constraints to an existing table
+        @Index(name = "uk_users_email_key", columnList = "email_key", unique = true),
+        @Index(name = "uk_users_username_key", columnList = "username_key", unique = true)
 })
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @NotBlank
     @Size(min = 3, max = 50)
-    @Column(unique = true)
     private String username;
 
     @NotBlank
     @Email
-    @Column(unique = true)
     private String email;
 
+    // Case-normalized copies of email and username; the unique indexes on these reject duplicates
+    @Column(name = "email_key")
+    private String emailKey;
+
+    @Column(name = "username_key")
+    private String usernameKey;
+
     @NotBlank
     @Size(min = 8)
     private String password;
@@ -58,6 +68,12 @@ public class User implements UserDetails {
 
     private boolean credentialsNonExpired = true;
 
+    // Incremented to invalidate every access token issued before the change. The
+    // column default lets ddl-auto: update add it to an existing users table
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long tokenEpoch = 0;
+
     private LocalDateTime emailVerifiedAt;
 
     private LocalDateTime lastLoginAt;
@@ -72,13 +88,13 @@ public class User implements UserDetails {
     @Size(max = 255)
     private String mfaSecret;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_mfa_backup_codes", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "backup_code")
     private Set<String> mfaBackupCodes = new HashSet<>();
 
     // OAuth fields
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_oauth_providers", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "provider")
     private Set<String> oauthProviders = new HashSet<>();
@@ -96,11 +112,27 @@ public class User implements UserDetails {
         if (roles.isEmpty()) {
             roles.add("ROLE_USER");
         }
+        updateKeys();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        updateKeys();
+    }
+
+    private void updateKeys() {
+        emailKey = normalizeKey(email);
+        usernameKey = normalizeKey(username);
+    }
+
+    /**
+     * Returns the form of an email or username that uniqueness is decided on:
+     * trimmed and lower-cased, so {@code Bob@Example.com} and {@code bob@example.com}
+     * cannot both be registered.
+     */
+    public static String normalizeKey(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
     }
 
     // UserDetails implementation
@@ -196,6 +228,14 @@ public class User implements UserDetails {
         this.emailVerified = emailVerified;
     }
 
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public void setTokenEpoch(long tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+
     public LocalDateTime getEmailVerifiedAt() {
         return emailVerifiedAt;
     }
@@ -0,0 +1,39 @@
+package com.auth.repository;
+
+/**
+ * Single-row read model of everything authentication needs from a user; see
+ * {@link UserRepository#findAuthUserByEmail(String)}.
+ */
+public interface AuthUserView {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getPassword();
+
+    String getFirstName();
+
+    String getLastName();
+
+    boolean isEnabled();
+
+    boolean isAccountNonExpired();
+
+    boolean isAccountNonLocked();
+
+    boolean isCredentialsNonExpired();
+
+    boolean isEmailVerified();
+
+    boolean isMfaEnabled();
+
+    long getTokenEpoch();
+
+    /**
+     * Comma-separated role names, or {@code null} for a user without roles.
+     */
+    String getRoles();
+}
@@ -2,6 +2,7 @@ package com.auth.repository;
 
 import com.auth.entity.EmailVerificationToken;
 import com.auth.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -28,4 +30,11 @@ public interface EmailVerificationTokenRepository extends JpaRepository<EmailVer
     @Modifying
     @Query("UPDATE EmailVerificationToken evt SET evt.confirmedAt = :confirmedAt WHERE evt.token = :token")
     void confirmToken(@Param("token") String token, @Param("confirmedAt") LocalDateTime confirmedAt);
-}
\ No newline at end of file
+
+    @Query("SELECT evt.id FROM EmailVerificationToken evt WHERE evt.id > :afterId AND evt.expiresAt < :now ORDER BY evt.id")
+    List<Long> findPurgeableIds(@Param("afterId") Long afterId, @Param("now") LocalDateTime now, Pageable chunk);
+
+    @Modifying
+    @Query("DELETE FROM EmailVerificationToken evt WHERE evt.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -2,6 +2,7 @@ package com.auth.repository;
 
 import com.auth.entity.PasswordResetToken;
 import com.auth.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -26,4 +28,11 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     @Modifying
     @Query("UPDATE PasswordResetToken prt SET prt.usedAt = :usedAt WHERE prt.token = :token")
     void markTokenAsUsed(@Param("token") String token, @Param("usedAt") LocalDateTime usedAt);
-}
\ No newline at end of file
+
+    @Query("SELECT prt.id FROM PasswordResetToken prt WHERE prt.id > :afterId AND prt.expiresAt < :now ORDER BY prt.id")
+    List<Long> findPurgeableIds(@Param("afterId") Long afterId, @Param("now") LocalDateTime now, Pageable chunk);
+
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken prt WHERE prt.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
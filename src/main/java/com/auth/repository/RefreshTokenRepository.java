@@ -2,6 +2,7 @@ package com.auth.repository;
 
 import com.auth.entity.RefreshToken;
 import com.auth.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,14 +10,12 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
-
     List<RefreshToken> findByUser(User user);
 
     List<RefreshToken> findByUserAndRevokedAtIsNull(User user);
@@ -24,6 +23,15 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.user = :user AND rt.revokedAt IS NULL AND rt.expiresAt > :now")
     List<RefreshToken> findValidTokensByUser(@Param("user") User user, @Param("now") LocalDateTime now);
 
+    /**
+     * Revokes a single token unless it already is; a result of 0 means another
+     * request used or revoked it first.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt, rt.revokedBy = :revokedBy WHERE rt.id = :id AND rt.revokedAt IS NULL")
+    int revokeById(@Param("id") Long id, @Param("revokedAt") LocalDateTime revokedAt,
+            @Param("revokedBy") String revokedBy);
+
     @Modifying
     @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt, rt.revokedBy = :revokedBy WHERE rt.user = :user AND rt.revokedAt IS NULL")
     void revokeAllTokensForUser(@Param("user") User user, @Param("revokedAt") LocalDateTime revokedAt,
@@ -33,6 +41,25 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :expiredBefore")
     void deleteExpiredTokens(@Param("expiredBefore") LocalDateTime expiredBefore);
 
+    /**
+     * Unrevoked, unexpired tokens of a page of users; the users themselves are not loaded.
+     */
+    @Query("SELECT rt FROM RefreshToken rt WHERE rt.user.id IN :userIds AND rt.revokedAt IS NULL AND rt.expiresAt > :now ORDER BY rt.id")
+    List<RefreshToken> findValidTokensByUserIds(@Param("userIds") Collection<Long> userIds,
+            @Param("now") LocalDateTime now);
+
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.user = :user AND rt.revokedAt IS NULL")
     long countValidTokensByUser(@Param("user") User user);
-}
\ No newline at end of file
+
+    /**
+     * Next chunk of ids of expired tokens, and of revoked tokens past their audit
+     * retention, in id order after {@code afterId}.
+     */
+    @Query("SELECT rt.id FROM RefreshToken rt WHERE rt.id > :afterId AND (rt.expiresAt < :now OR rt.revokedAt < :revokedBefore) ORDER BY rt.id")
+    List<Long> findPurgeableIds(@Param("afterId") Long afterId, @Param("now") LocalDateTime now,
+            @Param("revokedBefore") LocalDateTime revokedBefore, Pageable chunk);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
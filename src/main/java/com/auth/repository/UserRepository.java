@@ -1,30 +1,116 @@
 package com.auth.repository;
 
 import com.auth.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    /**
+     * Loads what authentication needs with one indexed lookup returning one row:
+     * roles are folded into a comma-separated column by a correlated subquery
+     * instead of being joined in as extra rows, and the MFA and OAuth collections
+     * are not touched.
+     */
+    @Query(value = """
+            SELECT u.id AS id, u.username AS username, u.email AS email, u.password AS password,
+                   u.first_name AS firstName, u.last_name AS lastName, u.enabled AS enabled,
+                   u.account_non_expired AS accountNonExpired, u.account_non_locked AS accountNonLocked,
+                   u.credentials_non_expired AS credentialsNonExpired, u.email_verified AS emailVerified,
+                   u.mfa_enabled AS mfaEnabled, u.token_epoch AS tokenEpoch,
+                   (SELECT group_concat(r.role) FROM user_roles r WHERE r.user_id = u.id) AS roles
+            FROM users u
+            WHERE u.email = :email
+            """, nativeQuery = true)
+    Optional<AuthUserView> findAuthUserByEmail(@Param("email") String email);
+
+    @Query("SELECT u.mfaSecret FROM User u WHERE u.id = :id")
+    Optional<String> findMfaSecretById(@Param("id") Long id);
+
+    /**
+     * Spends a backup code: deletes it if it is still there. A result of 0 means
+     * the code is wrong or another request spent it first.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_mfa_backup_codes WHERE user_id = :userId AND backup_code = :code",
+            nativeQuery = true)
+    int deleteMfaBackupCode(@Param("userId") Long userId, @Param("code") String code);
+
+    @EntityGraph(attributePaths = "mfaBackupCodes")
+    Optional<User> findWithMfaBackupCodesById(Long id);
+
+    @EntityGraph(attributePaths = "oauthProviders")
+    Optional<User> findWithOauthProvidersById(Long id);
+
+    /**
+     * Next page of users in id order after {@code afterId}, for keyset pagination.
+     */
+    @Query("""
+            SELECT u.id AS id, u.username AS username, u.email AS email, u.firstName AS firstName,
+                   u.lastName AS lastName, u.emailVerified AS emailVerified, u.enabled AS enabled,
+                   u.accountNonLocked AS accountNonLocked, u.mfaEnabled AS mfaEnabled,
+                   u.createdAt AS createdAt, u.updatedAt AS updatedAt, u.lastLoginAt AS lastLoginAt
+            FROM User u
+            WHERE u.id > :afterId
+            ORDER BY u.id
+            """)
+    List<UserSummaryView> findSummariesAfter(@Param("afterId") long afterId, Pageable page);
+
+    /**
+     * Pairs of user id and role for a page of users, so roles cost one query per page.
+     */
+    @Query("SELECT u.id, r FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRolesByUserIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id, p FROM User u JOIN u.oauthProviders p WHERE u.id IN :ids")
+    List<Object[]> findOauthProvidersByUserIds(@Param("ids") Collection<Long> ids);
+
     Optional<User> findByUsername(String username);
 
     boolean existsByEmail(String email);
 
     boolean existsByUsername(String username);
 
+    boolean existsByEmailKey(String emailKey);
+
+    boolean existsByUsernameKey(String usernameKey);
+
+    @Query("SELECT u.emailKey FROM User u WHERE u.emailKey IN :keys")
+    List<String> findEmailKeysIn(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT u.usernameKey FROM User u WHERE u.usernameKey IN :keys")
+    List<String> findUsernameKeysIn(@Param("keys") Collection<String> keys);
+
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.enabled = true")
     Optional<User> findActiveUserByEmail(@Param("email") String email);
 
     @Query("SELECT u FROM User u WHERE u.username = :username AND u.enabled = true")
     Optional<User> findActiveUserByUsername(@Param("username") String username);
 
+    @Query("SELECT u.email FROM User u WHERE u.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
+    @Query("SELECT u.password FROM User u WHERE u.id = :id")
+    Optional<String> findPasswordById(@Param("id") Long id);
+
+    @Query("SELECT u.tokenEpoch FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenEpochById(@Param("id") Long id);
+
     @Query("SELECT COUNT(u) FROM User u WHERE u.email = :email")
     long countByEmail(@Param("email") String email);
 
@@ -0,0 +1,35 @@
+package com.auth.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Column-only view of a user for listings and exports; see
+ * {@link UserRepository#findSummariesAfter}. Leaves out credentials and every
+ * collection.
+ */
+public interface UserSummaryView {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    boolean isEmailVerified();
+
+    boolean isEnabled();
+
+    boolean isAccountNonLocked();
+
+    boolean isMfaEnabled();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getLastLoginAt();
+}
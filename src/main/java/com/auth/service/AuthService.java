@@ -7,18 +7,25 @@ import com.auth.entity.*;
 import com.auth.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -27,7 +34,7 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
 
     @Autowired
     private EmailVerificationTokenRepository emailVerificationTokenRepository;
@@ -50,74 +57,153 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    private LoginActivityBuffer loginActivityBuffer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Value("${app.auth.email.verification.token-validity:3600}")
     private long emailVerificationTokenValidity;
 
     @Value("${app.auth.password-reset.token-validity:3600}")
     private long passwordResetTokenValidity;
 
-    @Transactional
     public AuthResponse login(LoginRequest request) {
+        return login(request, null);
+    }
+
+    /**
+     * Throttled logins are refused before the user is loaded or the password is
+     * hashed; see {@link LoginThrottleService}. Deliberately not transactional: the
+     * user is read in its own read-only transaction and only the refresh-token
+     * insert writes, so no write connection is held while the password is checked.
+     */
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        loginThrottleService.checkAllowed(request.getEmail(), clientIp);
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
 
-            User user = (User) authentication.getPrincipal();
+            AuthUser user = (AuthUser) authentication.getPrincipal();
 
             // Check if MFA is required
             if (user.isMfaEnabled()) {
                 if (request.getMfaCode() == null || request.getMfaCode().isEmpty()) {
-                    // MFA is enabled but no code provided
+                    // MFA is enabled but no code provided: hand out a challenge token so the
+                    // second step does not need (and re-hash) the password
                     return createMfaRequiredResponse(user);
                 }
 
-                // Verify MFA code
-                if (!mfaService.verifyCode(request.getMfaCode(), user.getMfaSecret())) {
+                // Verify MFA code; the secret is not part of the cached principal
+                String mfaSecret = userRepository.findMfaSecretById(user.getId()).orElse(null);
+                if (!mfaService.verifyCode(request.getMfaCode(), mfaSecret)) {
                     throw new BadCredentialsException("Invalid MFA code");
                 }
             }
 
-            // Update last login
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
-
-            // Generate tokens
-            String accessToken = jwtService.generateAccessToken(user);
-            String refreshToken = generateRefreshToken(user);
-
-            return new AuthResponse(accessToken, refreshToken, convertToUserDto(user));
+            loginThrottleService.reset(request.getEmail());
+            return issueTokens(user);
 
         } catch (BadCredentialsException e) {
+            loginThrottleService.recordFailure(request.getEmail(), clientIp);
             throw new RuntimeException("Invalid email or password");
+        } catch (LockedException e) {
+            throw new RuntimeException("Account is locked");
         }
     }
 
-    @Transactional
+    /**
+     * Second step of an MFA login: exchanges the challenge token issued by
+     * {@link #login(LoginRequest, String)} and a TOTP or backup code for tokens.
+     * Each challenge token can be used once: its id is claimed before the code is
+     * checked, so of concurrent requests with the same token only one proceeds,
+     * and the claim is only given back when the code is wrong. Not transactional,
+     * like {@link #login(LoginRequest, String)}.
+     */
+    public AuthResponse completeMfaLogin(String mfaToken, String code, String clientIp) {
+        VerifiedClaims challenge = tokenIntrospectionService.validateMfaChallengeToken(mfaToken);
+        if (challenge == null || !(challenge.getClaim(JwtService.CLAIM_USER_ID) instanceof Number userId)) {
+            throw new RuntimeException("Invalid or expired MFA token");
+        }
+
+        String email = challenge.getSubject();
+        loginThrottleService.checkAllowed(email, clientIp);
+
+        // Also refused when the index is full, since the token could not be made single-use
+        if (!tokenRevocationIndex.claim(challenge.getId(), challenge.getExpiresAt())) {
+            throw new RuntimeException("Invalid or expired MFA token");
+        }
+
+        User user = userRepository.findById(userId.longValue())
+                .filter(User::isMfaEnabled)
+                .orElseThrow(() -> new RuntimeException("Invalid or expired MFA token"));
+        if (!user.isEnabled()) {
+            throw new RuntimeException("Account is disabled");
+        }
+        if (!user.isAccountNonLocked()) {
+            throw new RuntimeException("Account is locked");
+        }
+
+        if (!mfaService.verifyCode(code, user.getMfaSecret())) {
+            // Deleting the code is the check, so one code cannot be spent twice
+            if (userRepository.deleteMfaBackupCode(user.getId(), code) != 1) {
+                tokenRevocationIndex.release(challenge.getId());
+                loginThrottleService.recordFailure(email, clientIp);
+                throw new RuntimeException("Invalid MFA code");
+            }
+            userDetailsService.evict(user);
+        }
+
+        loginThrottleService.reset(email);
+        return issueTokens(AuthUser.from(user));
+    }
+
+    /**
+     * Not transactional itself: the password is hashed first, and only the inserts
+     * run in a write transaction, so the writer connection is not held while hashing.
+     */
     public AuthResponse signup(SignupRequest request) {
         // Validate password confirmation
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new RuntimeException("Passwords do not match");
         }
 
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already registered");
-        }
-
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already taken");
-        }
+        String passwordHash = passwordEncoder.encode(request.getPassword());
+        return new TransactionTemplate(transactionManager).execute(status -> createUser(request, passwordHash));
+    }
 
-        // Create new user
+    private AuthResponse createUser(SignupRequest request, String passwordHash) {
+        // Create new user; duplicates are rejected by the unique keys, not by prior lookups
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setEmailVerified(false);
 
-        user = userRepository.save(user);
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateSignup(e);
+        }
+        userDetailsService.evict(user);
 
         // Send email verification
         sendEmailVerification(user);
@@ -126,42 +212,70 @@ public class AuthService {
         emailService.sendWelcomeEmail(user.getEmail(), user.getUsername());
 
         // Generate tokens
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = generateRefreshToken(user);
+        AuthUser authUser = AuthUser.from(user);
+        String accessToken = jwtService.generateAccessToken(authUser);
+        String refreshToken = generateRefreshToken(authUser.getId());
 
-        return new AuthResponse(accessToken, refreshToken, convertToUserDto(user));
+        return new AuthResponse(accessToken, refreshToken, convertToUserDto(authUser));
     }
 
-    @Transactional
-    public AuthResponse refreshToken(String refreshToken) {
-        RefreshToken token = refreshTokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+    /**
+     * Reports whether an email and/or username could still be registered. Both are
+     * compared on their normalized keys with one indexed lookup each; a signup can
+     * still lose a race after this returns true.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> checkAvailability(String email, String username) {
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (email != null) {
+            availability.put("email", !userRepository.existsByEmailKey(User.normalizeKey(email)));
+        }
+        if (username != null) {
+            availability.put("username", !userRepository.existsByUsernameKey(User.normalizeKey(username)));
+        }
+        return availability;
+    }
 
-        if (token.isExpired() || token.isRevoked()) {
-            throw new RuntimeException("Refresh token expired or revoked");
+    /**
+     * Rotates a refresh token. The owner is looked up first, outside any
+     * transaction, and served from the user-details cache; only then is the old
+     * token revoked and the new one issued together by
+     * {@link RefreshTokenStore#rotate}. A deleted, disabled or locked user
+     * therefore fails before the presented token is spent.
+     */
+    public AuthResponse refreshToken(String refreshToken) {
+        AuthUser user = refreshTokenStore.findOwner(refreshToken)
+                .flatMap(userRepository::findEmailById)
+                .map(email -> (AuthUser) userDetailsService.loadUserByUsername(email))
+                .orElseThrow(() -> new RuntimeException("Invalid, expired or revoked refresh token"));
+        if (!user.isEnabled()) {
+            throw new RuntimeException("Account is disabled");
+        }
+        if (!user.isAccountNonLocked()) {
+            throw new RuntimeException("Account is locked");
         }
 
-        User user = token.getUser();
+        String newRefreshToken = refreshTokenStore.rotate(refreshToken, "refresh", refreshTokenExpiry())
+                .orElseThrow(() -> new RuntimeException("Invalid, expired or revoked refresh token"));
         String newAccessToken = jwtService.generateAccessToken(user);
-        String newRefreshToken = generateRefreshToken(user);
-
-        // Revoke old refresh token
-        token.setRevokedAt(LocalDateTime.now());
-        token.setRevokedBy("refresh");
-        refreshTokenRepository.save(token);
 
         return new AuthResponse(newAccessToken, newRefreshToken, convertToUserDto(user));
     }
 
-    @Transactional
     public void logout(String refreshToken) {
-        RefreshToken token = refreshTokenRepository.findByToken(refreshToken)
-                .orElse(null);
+        logout(refreshToken, null);
+    }
+
+    /**
+     * Not transactional, like {@link #refreshToken(String)}: the JPA store revokes in
+     * its own short transaction and the embedded store needs none, so the writer
+     * connection is only taken when the database is actually written.
+     */
+    public void logout(String refreshToken, String accessToken) {
+        refreshTokenStore.revoke(refreshToken, "logout");
 
-        if (token != null) {
-            token.setRevokedAt(LocalDateTime.now());
-            token.setRevokedBy("logout");
-            refreshTokenRepository.save(token);
+        if (accessToken != null) {
+            revokeAccessToken(accessToken);
         }
     }
 
@@ -170,7 +284,11 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        refreshTokenRepository.revokeAllTokensForUser(user, LocalDateTime.now(), "revoke_all");
+        refreshTokenStore.revokeAll(user.getId(), "revoke_all");
+        tokenEpochService.advance(user);
+        userRepository.save(user);
+        jwtService.evictSubject(user.getEmail());
+        userDetailsService.evict(user);
     }
 
     @Transactional
@@ -194,6 +312,7 @@ public class AuthService {
         user.setEmailVerified(true);
         user.setEmailVerifiedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsService.evict(user);
 
         // Delete the verification token
         emailVerificationTokenRepository.delete(verificationToken);
@@ -206,7 +325,7 @@ public class AuthService {
 
         // Create password reset token
         PasswordResetToken resetToken = new PasswordResetToken();
-        resetToken.setToken(UUID.randomUUID().toString());
+        resetToken.setToken(SecureTokenGenerator.nextToken(32));
         resetToken.setUser(user);
         resetToken.setExpiresAt(LocalDateTime.now().plusSeconds(passwordResetTokenValidity));
         passwordResetTokenRepository.save(resetToken);
@@ -226,7 +345,12 @@ public class AuthService {
 
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
+        // A reset proves ownership of the mailbox, so it also lifts any lockout
+        user.setAccountNonLocked(true);
+        loginThrottleService.reset(user.getEmail());
+        tokenEpochService.advance(user);
         userRepository.save(user);
+        userDetailsService.evict(user);
 
         // Mark token as used
         resetToken.setUsedAt(LocalDateTime.now());
@@ -243,21 +367,174 @@ public class AuthService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        tokenEpochService.advance(user);
+        userRepository.save(user);
+        userDetailsService.evict(user);
+    }
+
+    /**
+     * Updates the given profile fields; {@code null} leaves a field unchanged.
+     */
+    @Transactional
+    public void updateProfile(Long userId, String firstName, String lastName, String profileImageUrl) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (firstName != null) {
+            user.setFirstName(firstName);
+        }
+        if (lastName != null) {
+            user.setLastName(lastName);
+        }
+        if (profileImageUrl != null) {
+            user.setProfileImageUrl(profileImageUrl);
+        }
+        userRepository.save(user);
+        userDetailsService.evict(user);
+    }
+
+    /**
+     * Changes the email and marks it unverified. Not transactional itself: the
+     * password is checked first, so the write transaction is not held while hashing.
+     */
+    public void changeEmail(Long userId, String newEmail, String password) {
+        String passwordHash = userRepository.findPasswordById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!passwordEncoder.matches(password, passwordHash)) {
+            throw new RuntimeException("Current password is incorrect");
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (userRepository.existsByEmailKey(User.normalizeKey(newEmail))) {
+                throw new RuntimeException("Email already taken");
+            }
+
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            String oldEmail = user.getEmail();
+            user.setEmail(newEmail);
+            user.setEmailVerified(false);
+            user.setEmailVerifiedAt(null);
+            try {
+                userRepository.saveAndFlush(user);
+            } catch (DataIntegrityViolationException e) {
+                throw new RuntimeException("Email already taken");
+            }
+            userDetailsService.evict(oldEmail);
+            userDetailsService.evict(newEmail);
+        });
+    }
+
+    /**
+     * Turns MFA on with a secret the user has just proven with a valid code, and
+     * returns the fresh backup codes.
+     */
+    @Transactional
+    public Set<String> completeMfaSetup(Long userId, String code, String secret) {
+        if (!mfaService.verifyCode(code, secret)) {
+            throw new RuntimeException("Invalid MFA code");
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Set<String> backupCodes = mfaService.generateBackupCodes();
+        user.setMfaEnabled(true);
+        user.setMfaSecret(secret);
+        user.setMfaBackupCodes(backupCodes);
+        tokenEpochService.advance(user);
         userRepository.save(user);
+        userDetailsService.evict(user);
+        return backupCodes;
     }
 
-    private String generateRefreshToken(User user) {
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setToken(UUID.randomUUID().toString());
-        refreshToken.setUser(user);
-        refreshToken.setExpiresAt(LocalDateTime.now().plusDays(7));
-        refreshTokenRepository.save(refreshToken);
-        return refreshToken.getToken();
+    @Transactional
+    public void enableMfa(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (user.getMfaSecret() == null) {
+            throw new RuntimeException("MFA not set up. Please set up MFA first.");
+        }
+
+        user.setMfaEnabled(true);
+        tokenEpochService.advance(user);
+        userRepository.save(user);
+        userDetailsService.evict(user);
+    }
+
+    @Transactional
+    public void disableMfa(Long userId, String code) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (!mfaService.verifyCode(code, user.getMfaSecret())) {
+            throw new RuntimeException("Invalid MFA code");
+        }
+
+        user.setMfaEnabled(false);
+        user.setMfaSecret(null);
+        user.setMfaBackupCodes(null);
+        tokenEpochService.advance(user);
+        userRepository.save(user);
+        userDetailsService.evict(user);
+    }
+
+    private void revokeAccessToken(String accessToken) {
+        VerifiedClaims claims = jwtService.verifyOrNull(accessToken);
+        jwtService.evictToken(accessToken);
+        if (claims == null) {
+            return;
+        }
+        if (!tokenRevocationIndex.revoke(claims.getId(), claims.getExpiresAt())
+                && claims.getClaim(JwtService.CLAIM_USER_ID) instanceof Number userId) {
+            // Index is full: fall back to invalidating every access token of the user
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    userRepository.findById(userId.longValue()).ifPresent(user -> {
+                        tokenEpochService.advance(user);
+                        userRepository.save(user);
+                        userDetailsService.evict(user);
+                    }));
+        }
+    }
+
+    /**
+     * Maps a unique-key violation from the signup insert to the message the old
+     * existence checks produced. Any other integrity violation is passed through.
+     * Only the driver's own messages are read, since the wrapping exceptions quote
+     * the insert with all of its column names. Also used by {@link UserImportService}.
+     */
+    static RuntimeException duplicateSignup(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause instanceof SQLException ? cause.getMessage() : null;
+            if (message == null) {
+                continue;
+            }
+            message = message.toLowerCase(Locale.ROOT);
+            if (!message.contains("unique")) {
+                continue;
+            }
+            // "username" first: the email constraint names never contain it
+            if (message.contains("username")) {
+                return new RuntimeException("Username already taken");
+            }
+            if (message.contains("email")) {
+                return new RuntimeException("Email already registered");
+            }
+        }
+        return e;
+    }
+
+    private String generateRefreshToken(Long userId) {
+        return refreshTokenStore.issue(userId, refreshTokenExpiry());
+    }
+
+    private LocalDateTime refreshTokenExpiry() {
+        return LocalDateTime.now().plusSeconds(jwtService.getRefreshTokenValidity());
     }
 
     private void sendEmailVerification(User user) {
         EmailVerificationToken verificationToken = new EmailVerificationToken();
-        verificationToken.setToken(UUID.randomUUID().toString());
+        verificationToken.setToken(SecureTokenGenerator.nextToken(32));
         verificationToken.setUser(user);
         verificationToken.setExpiresAt(LocalDateTime.now().plusSeconds(emailVerificationTokenValidity));
         emailVerificationTokenRepository.save(verificationToken);
@@ -265,14 +542,27 @@ public class AuthService {
         emailService.sendEmailVerification(user.getEmail(), verificationToken.getToken(), user.getUsername());
     }
 
-    private AuthResponse createMfaRequiredResponse(User user) {
-        return new AuthResponse(null, null, convertToUserDto(user), true);
+    private AuthResponse issueTokens(AuthUser user) {
+        // Update last login; written behind so the login itself does not update the user row
+        loginActivityBuffer.recordLogin(user.getId(), LocalDateTime.now());
+
+        // Generate tokens
+        String accessToken = jwtService.generateAccessToken(user);
+        String refreshToken = generateRefreshToken(user.getId());
+
+        return new AuthResponse(accessToken, refreshToken, convertToUserDto(user));
+    }
+
+    private AuthResponse createMfaRequiredResponse(AuthUser user) {
+        AuthResponse response = new AuthResponse(null, null, convertToUserDto(user), true);
+        response.setMfaToken(jwtService.generateMfaChallengeToken(user));
+        return response;
     }
 
-    private AuthResponse.UserDto convertToUserDto(User user) {
+    private AuthResponse.UserDto convertToUserDto(AuthUser user) {
         AuthResponse.UserDto userDto = new AuthResponse.UserDto();
         userDto.setId(user.getId());
-        userDto.setUsername(user.getUsername());
+        userDto.setUsername(user.getProfileUsername());
         userDto.setEmail(user.getEmail());
         userDto.setFirstName(user.getFirstName());
         userDto.setLastName(user.getLastName());
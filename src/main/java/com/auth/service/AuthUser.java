@@ -0,0 +1,154 @@
+package com.auth.service;
+
+import com.auth.entity.User;
+import com.auth.repository.AuthUserView;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable principal holding only what logging in and issuing tokens need: the
+ * password hash, account flags, roles and the fields shown in auth responses.
+ * Loaded in one row by {@link CustomUserDetailsService} and cached there, so it
+ * never drags the MFA or OAuth collections of the {@link User} entity along.
+ * Like {@link UserPrincipal}, {@link #getUsername()} is the email address.
+ */
+public final class AuthUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final String firstName;
+    private final String lastName;
+    private final boolean enabled;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
+    private final boolean emailVerified;
+    private final boolean mfaEnabled;
+    private final long tokenEpoch;
+    private final Set<String> roles;
+    private final List<GrantedAuthority> authorities;
+
+    private AuthUser(Long id, String username, String email, String password, String firstName, String lastName,
+            boolean enabled, boolean accountNonExpired, boolean accountNonLocked, boolean credentialsNonExpired,
+            boolean emailVerified, boolean mfaEnabled, long tokenEpoch, Set<String> roles) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.enabled = enabled;
+        this.accountNonExpired = accountNonExpired;
+        this.accountNonLocked = accountNonLocked;
+        this.credentialsNonExpired = credentialsNonExpired;
+        this.emailVerified = emailVerified;
+        this.mfaEnabled = mfaEnabled;
+        this.tokenEpoch = tokenEpoch;
+        this.roles = roles;
+        this.authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    public static AuthUser from(AuthUserView view) {
+        Set<String> roles = view.getRoles() == null ? Set.of()
+                : Arrays.stream(view.getRoles().split(",")).collect(Collectors.toUnmodifiableSet());
+        return new AuthUser(view.getId(), view.getUsername(), view.getEmail(), view.getPassword(),
+                view.getFirstName(), view.getLastName(), view.isEnabled(), view.isAccountNonExpired(),
+                view.isAccountNonLocked(), view.isCredentialsNonExpired(), view.isEmailVerified(),
+                view.isMfaEnabled(), view.getTokenEpoch(), roles);
+    }
+
+    /**
+     * Copies the authentication fields of an entity that is already loaded.
+     */
+    public static AuthUser from(User user) {
+        return new AuthUser(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                user.getFirstName(), user.getLastName(), user.isEnabled(), user.isAccountNonExpired(),
+                user.isAccountNonLocked(), user.isCredentialsNonExpired(), user.isEmailVerified(),
+                user.isMfaEnabled(), user.getTokenEpoch(), Set.copyOf(user.getRoles()));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Returns the user's chosen username, as opposed to {@link #getUsername()}.
+     */
+    public String getProfileUsername() {
+        return username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+
+    public boolean isMfaEnabled() {
+        return mfaEnabled;
+    }
+
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return accountNonExpired;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return accountNonLocked;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return credentialsNonExpired;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -2,21 +2,188 @@ package com.auth.service;
 
 import com.auth.entity.User;
 import com.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    private final boolean cacheEnabled;
+
+    // Authentication views by email; entries are dropped through evict() whenever a user changes
+    private final Cache<String, AuthUser> users;
+
+    // Emails known not to exist, so enumeration attempts do not reach the database
+    private final Cache<String, Boolean> unknownEmails;
+
+    public CustomUserDetailsService(
+            @Value("${app.auth.user-cache.enabled:true}") boolean cacheEnabled,
+            @Value("${app.auth.user-cache.max-size:10000}") long maxSize,
+            @Value("${app.auth.user-cache.ttl:300}") long ttlSeconds,
+            @Value("${app.auth.user-cache.negative-max-size:10000}") long negativeMaxSize,
+            @Value("${app.auth.user-cache.negative-ttl:60}") long negativeTtlSeconds,
+            MeterRegistry meterRegistry) {
+        this.cacheEnabled = cacheEnabled;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.unknownEmails = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "user-details");
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownEmails, "user-details.unknown");
+    }
+
+    /**
+     * Loads the {@link AuthUser} for an email with a single-row query; the MFA and
+     * OAuth collections of the entity are never touched here.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
+        if (!cacheEnabled) {
+            return userRepository.findAuthUserByEmail(username)
+                    .map(AuthUser::from)
+                    .orElseThrow(() -> userNotFound(username));
+        }
+
+        AuthUser cached = users.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        if (unknownEmails.getIfPresent(username) != null) {
+            throw userNotFound(username);
+        }
+
+        Optional<AuthUser> user = userRepository.findAuthUserByEmail(username).map(AuthUser::from);
+        if (user.isEmpty()) {
+            unknownEmails.put(username, Boolean.TRUE);
+            throw userNotFound(username);
+        }
+        users.put(username, user.get());
+        return user.get();
+    }
+
+    /**
+     * Whether an account exists for the email. Right after a failed login the answer
+     * is already in one of the caches, so this rarely costs a query.
+     */
+    public boolean isKnownEmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        if (cacheEnabled) {
+            if (users.getIfPresent(email) != null) {
+                return true;
+            }
+            if (unknownEmails.getIfPresent(email) != null) {
+                return false;
+            }
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Stores a re-hashed password after a successful login whose stored hash was
+     * produced with an outdated algorithm or cost. The password itself is
+     * unchanged, so issued tokens stay valid.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String email = user instanceof User entity ? entity.getEmail() : user.getUsername();
+        return userRepository.findByEmail(email)
+                .map(entity -> {
+                    entity.setPassword(newPassword);
+                    User saved = userRepository.save(entity);
+                    evict(email);
+                    return (UserDetails) AuthUser.from(saved);
+                })
+                .orElse(user);
+    }
+
+    /**
+     * Drops any cached state for the given email. Must be called after every write
+     * that changes a user's credentials, profile, flags or tokens, and after a user
+     * is created so a stale negative entry does not hide it.
+     */
+    public void evict(String email) {
+        if (email != null) {
+            users.invalidate(email);
+            unknownEmails.invalidate(email);
+        }
+    }
+
+    public void evict(User user) {
+        evict(user.getEmail());
+    }
+
+    /**
+     * Returns the full {@link User} entity behind an authenticated request. Principals
+     * are {@link AuthUser} views or rebuilt from token claims, so the entity is loaded
+     * by id and only endpoints that actually need it pay for the database read.
+     * For reads only: changes go through an {@link AuthService} method that loads
+     * the user by id in its own read-write transaction.
+     */
+    public User loadUser(Authentication authentication) {
+        if (authentication == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return userRepository.findById(getUserId(authentication))
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Like {@link #loadUser(Authentication)}, with the backup codes fetched in the same query.
+     */
+    public User loadUserWithMfaBackupCodes(Authentication authentication) {
+        return userRepository.findWithMfaBackupCodesById(getUserId(authentication))
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Like {@link #loadUser(Authentication)}, with the linked OAuth providers fetched in the same query.
+     */
+    public User loadUserWithOauthProviders(Authentication authentication) {
+        return userRepository.findWithOauthProvidersById(getUserId(authentication))
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    public Long getUserId(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthUser user) {
+            return user.getId();
+        }
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        throw new RuntimeException("User not found");
+    }
+
+    private static UsernameNotFoundException userNotFound(String email) {
+        return new UsernameNotFoundException("User not found with email: " + email);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,383 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Refresh-token store that keeps every token in a concurrent in-memory index and
+ * makes it durable through an append-only, memory-mapped log on local disk.
+ *
+ * <p>Lookups never leave memory. Writes append a fixed-size record to the mapped
+ * log under a short lock, so they cost a few memory stores rather than a database
+ * transaction. A record's type byte is written last, which lets replay stop
+ * cleanly at a record that was only partly written. The log is flushed to disk
+ * every {@code sync-interval}; a process crash loses nothing, a power failure at
+ * most that interval. Compaction rewrites the log with only the live tokens once
+ * it has grown to twice their size; writes wait while it runs. The reason of a
+ * revocation is not recorded.
+ *
+ * <p>The log belongs to a single process; run one instance per file.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.refresh-token.store", havingValue = "embedded")
+public class EmbeddedRefreshTokenStore implements RefreshTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedRefreshTokenStore.class);
+
+    // Record layouts; all numbers are big-endian longs
+    private static final byte ISSUE = 1;        // id, user id, expires at, SHA-256 of secret
+    private static final byte REVOKE = 2;       // id, revoked at
+    private static final byte REVOKE_USER = 3;  // user id, revoked at
+    private static final byte SEQUENCE = 4;     // next id, written first by compaction
+
+    private static final int HASH_SIZE = 32;
+    private static final int ISSUE_SIZE = 1 + 3 * Long.BYTES + HASH_SIZE;
+    private static final int REVOKE_SIZE = 1 + 2 * Long.BYTES;
+    private static final int SEQUENCE_SIZE = 1 + Long.BYTES;
+
+    private static final int MIN_MAPPED_SIZE = 1 << 20;
+
+    private final Path path;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final ConcurrentHashMap<Long, Entry> tokens = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Set<Long>> tokensByUser = new ConcurrentHashMap<>();
+
+    // Serializes appends so the log order matches the order of in-memory updates
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private FileChannel channel;
+
+    private MappedByteBuffer mapped;
+
+    private long nextId = 1;
+
+    private volatile long logBytes;
+
+    public EmbeddedRefreshTokenStore(
+            @Value("${app.auth.refresh-token.embedded.path:data/refresh-tokens.log}") String path,
+            MeterRegistry meterRegistry) throws IOException {
+        this.path = Paths.get(path).toAbsolutePath();
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        open();
+        replay();
+        log.info("Loaded {} refresh tokens from {}", tokens.size(), this.path);
+
+        Gauge.builder("refresh-tokens.embedded.entries", tokens, Map::size)
+                .description("Refresh tokens held by the embedded store")
+                .register(meterRegistry);
+        Gauge.builder("refresh-tokens.embedded.log.bytes", () -> logBytes)
+                .description("Bytes used in the embedded refresh-token log")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String issue(Long userId, LocalDateTime expiresAt) {
+        String secret = SplitToken.newSecret();
+        byte[] hash = SplitToken.digest(secret);
+        long expiresAtMillis = toMillis(expiresAt);
+        long id;
+
+        writeLock.lock();
+        try {
+            id = nextId++;
+            int position = reserve(ISSUE_SIZE);
+            mapped.putLong(position + 1, id);
+            mapped.putLong(position + 9, userId);
+            mapped.putLong(position + 17, expiresAtMillis);
+            mapped.put(position + 25, hash);
+            commit(position, ISSUE, ISSUE_SIZE);
+            add(id, new Entry(userId, hash, expiresAtMillis, 0));
+        } finally {
+            writeLock.unlock();
+        }
+        return new SplitToken(id, secret).value();
+    }
+
+    @Override
+    public Optional<Long> revoke(String token, String reason) {
+        SplitToken presented = SplitToken.parse(token);
+        if (presented == null) {
+            return Optional.empty();
+        }
+        Entry entry = tokens.get(presented.id());
+        if (entry == null || !presented.matches(entry.hash())) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            // Re-read under the lock: another request may have used the token meanwhile
+            Entry current = tokens.get(presented.id());
+            if (current == null || !current.isLive(now)) {
+                return Optional.empty();
+            }
+            int position = reserve(REVOKE_SIZE);
+            mapped.putLong(position + 1, presented.id());
+            mapped.putLong(position + 9, now);
+            commit(position, REVOKE, REVOKE_SIZE);
+            tokens.put(presented.id(), current.revoke(now));
+            return Optional.of(current.userId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Long> findOwner(String token) {
+        SplitToken presented = SplitToken.parse(token);
+        if (presented == null) {
+            return Optional.empty();
+        }
+        Entry entry = tokens.get(presented.id());
+        if (entry == null || !presented.matches(entry.hash()) || !entry.isLive(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.userId());
+    }
+
+    /**
+     * Holds the write lock across the revocation and the new token, so no other
+     * write is logged between the two.
+     */
+    @Override
+    public Optional<String> rotate(String token, String reason, LocalDateTime expiresAt) {
+        writeLock.lock();
+        try {
+            return revoke(token, reason).map(userId -> issue(userId, expiresAt));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void revokeAll(Long userId, String reason) {
+        long now = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            int position = reserve(REVOKE_SIZE);
+            mapped.putLong(position + 1, userId);
+            mapped.putLong(position + 9, now);
+            commit(position, REVOKE_USER, REVOKE_SIZE);
+            revokeUser(userId, now);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.refresh-token.embedded.sync-interval:1000}")
+    public void sync() {
+        writeLock.lock();
+        try {
+            mapped.force();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops expired and revoked tokens and rewrites the log with what is left,
+     * once the log has grown to at least twice the size the live tokens need.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.refresh-token.embedded.compaction-interval:600000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            tokens.entrySet().removeIf(e -> !e.getValue().isLive(now) && forget(e.getKey(), e.getValue()));
+            long liveBytes = SEQUENCE_SIZE + (long) tokens.size() * ISSUE_SIZE;
+            if (mapped.position() < Math.max(2 * liveBytes, MIN_MAPPED_SIZE / 2)) {
+                return;
+            }
+
+            int before = mapped.position();
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * ISSUE_SIZE);
+                buffer.put(SEQUENCE).putLong(nextId);
+                for (Map.Entry<Long, Entry> e : tokens.entrySet()) {
+                    if (buffer.remaining() < ISSUE_SIZE) {
+                        writeFully(out, buffer);
+                    }
+                    Entry entry = e.getValue();
+                    buffer.put(ISSUE).putLong(e.getKey()).putLong(entry.userId())
+                            .putLong(entry.expiresAt()).put(entry.hash());
+                }
+                writeFully(out, buffer);
+                out.force(true);
+            }
+
+            mapped.force();
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            open();
+            mapped.position((int) liveBytes);
+            logBytes = liveBytes;
+            log.info("Compacted refresh-token log from {} to {} bytes", before, liveBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact " + path, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            mapped.force();
+            channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), MIN_MAPPED_SIZE));
+    }
+
+    private void replay() {
+        int position = 0;
+        while (position < mapped.limit()) {
+            byte type = mapped.get(position);
+            int size = switch (type) {
+                case ISSUE -> ISSUE_SIZE;
+                case REVOKE, REVOKE_USER -> REVOKE_SIZE;
+                case SEQUENCE -> SEQUENCE_SIZE;
+                default -> 0;
+            };
+            // A zero type marks the end of the log, including a record cut short by a crash
+            if (size == 0 || position + size > mapped.limit()) {
+                break;
+            }
+            switch (type) {
+                case ISSUE -> {
+                    long id = mapped.getLong(position + 1);
+                    byte[] hash = new byte[HASH_SIZE];
+                    mapped.get(position + 25, hash);
+                    add(id, new Entry(mapped.getLong(position + 9), hash, mapped.getLong(position + 17), 0));
+                    nextId = Math.max(nextId, id + 1);
+                }
+                case REVOKE -> {
+                    long revokedAt = mapped.getLong(position + 9);
+                    tokens.computeIfPresent(mapped.getLong(position + 1), (id, entry) -> entry.revoke(revokedAt));
+                }
+                case REVOKE_USER -> revokeUser(mapped.getLong(position + 1), mapped.getLong(position + 9));
+                case SEQUENCE -> nextId = Math.max(nextId, mapped.getLong(position + 1));
+                default -> throw new IllegalStateException("Unreachable");
+            }
+            position += size;
+        }
+        mapped.position(position);
+        logBytes = position;
+    }
+
+    /**
+     * Returns the offset of a free record of the given size, growing the mapping
+     * if needed. Must be called with the write lock held.
+     */
+    private int reserve(int size) {
+        if (mapped.remaining() < size) {
+            long newSize = 2L * mapped.capacity();
+            if (newSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Refresh-token log is full, compaction is not keeping up: " + path);
+            }
+            try {
+                int position = mapped.position();
+                mapped.force();
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+                mapped.position(position);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow " + path, e);
+            }
+        }
+        return mapped.position();
+    }
+
+    private void commit(int position, byte type, int size) {
+        // Written last so a torn record reads as the end of the log
+        mapped.put(position, type);
+        mapped.position(position + size);
+        logBytes = position + size;
+    }
+
+    private void add(long id, Entry entry) {
+        tokens.put(id, entry);
+        tokensByUser.computeIfAbsent(entry.userId(), k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private boolean forget(long id, Entry entry) {
+        tokensByUser.computeIfPresent(entry.userId(), (userId, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+        return true;
+    }
+
+    private void revokeUser(long userId, long revokedAt) {
+        Set<Long> ids = tokensByUser.get(userId);
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            tokens.computeIfPresent(id, (k, entry) -> entry.revokedAt() == 0 ? entry.revoke(revokedAt) : entry);
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private record Entry(long userId, byte[] hash, long expiresAt, long revokedAt) {
+
+        boolean isLive(long now) {
+            return revokedAt == 0 && expiresAt > now;
+        }
+
+        Entry revoke(long at) {
+            return new Entry(userId, hash, expiresAt, at);
+        }
+    }
+}
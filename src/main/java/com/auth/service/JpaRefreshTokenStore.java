@@ -0,0 +1,86 @@
+package com.auth.service;
+
+import com.auth.entity.RefreshToken;
+import com.auth.repository.RefreshTokenRepository;
+import com.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps refresh tokens in the {@code refresh_tokens} table. Tokens are fetched by
+ * primary key without their user and revoked with a conditional UPDATE.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public String issue(Long userId, LocalDateTime expiresAt) {
+        String secret = SplitToken.newSecret();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(SplitToken.hash(secret));
+        refreshToken.setUser(userRepository.getReferenceById(userId));
+        refreshToken.setExpiresAt(expiresAt);
+        refreshTokenRepository.save(refreshToken);
+        return new SplitToken(refreshToken.getId(), secret).value();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Long> revoke(String token, String reason) {
+        SplitToken presented = SplitToken.parse(token);
+        if (presented == null) {
+            return Optional.empty();
+        }
+        return refreshTokenRepository.findById(presented.id())
+                .filter(refreshToken -> presented.matches(refreshToken.getTokenHash()))
+                .filter(refreshToken -> !refreshToken.isExpired() && !refreshToken.isRevoked())
+                // Only one of two concurrent revocations updates the row
+                .filter(refreshToken -> refreshTokenRepository.revokeById(
+                        refreshToken.getId(), LocalDateTime.now(), reason) == 1)
+                // The association is lazy, so this reads the foreign key without loading the user
+                .map(refreshToken -> refreshToken.getUser().getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findOwner(String token) {
+        SplitToken presented = SplitToken.parse(token);
+        if (presented == null) {
+            return Optional.empty();
+        }
+        return refreshTokenRepository.findById(presented.id())
+                .filter(refreshToken -> presented.matches(refreshToken.getTokenHash()))
+                .filter(refreshToken -> !refreshToken.isExpired() && !refreshToken.isRevoked())
+                .map(refreshToken -> refreshToken.getUser().getId());
+    }
+
+    /**
+     * Runs {@link #revoke} and {@link #issue} in one short transaction, so a failed
+     * insert rolls the revocation back and the presented token stays usable.
+     */
+    @Override
+    @Transactional
+    public Optional<String> rotate(String token, String reason, LocalDateTime expiresAt) {
+        return revoke(token, reason).map(userId -> issue(userId, expiresAt));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(Long userId, String reason) {
+        refreshTokenRepository.revokeAllTokensForUser(userRepository.getReferenceById(userId),
+                LocalDateTime.now(), reason);
+    }
+}
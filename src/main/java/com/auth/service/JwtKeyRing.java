@@ -0,0 +1,226 @@
+package com.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the keys used to sign and verify JWTs.
+ *
+ * <p>With {@code jwt.signing.algorithm=HMAC} (the default) a single key derived
+ * from {@code jwt.secret} is used and nothing is published. With RS256, ES256 or
+ * EdDSA the private keys are read from the PKCS#8 PEM files listed in
+ * {@code jwt.signing.key-files}: the first one signs, the others only verify, and
+ * each key id is the key's JWK thumbprint, so every instance publishes the same
+ * JWK Set and tokens survive restarts. Keys are rotated by putting a new file
+ * first and dropping the old one once its tokens have expired.
+ *
+ * <p>Without key files, a development fallback generates a key pair in memory and
+ * a new one on every rotation; the previous keys keep verifying tokens until the
+ * longest-lived token they could have signed has expired. Those keys die with the
+ * process: a restart invalidates every outstanding token, and instances reject
+ * each other's tokens. The public half of every live key is served as a JWK Set
+ * whose bytes and ETag are rebuilt only when the ring changes.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String HMAC = "HMAC";
+
+    private final String algorithm;
+
+    private final Duration retention;
+
+    private final ObjectMapper objectMapper;
+
+    private final Key hmacKey;
+
+    private final boolean configuredKeys;
+
+    // Replaced wholesale on rotation so readers never see a half-updated ring
+    private volatile State state;
+
+    public JwtKeyRing(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.signing.algorithm:HMAC}") String algorithm,
+            @Value("${jwt.access-token-validity}") long accessTokenValidity,
+            @Value("${jwt.refresh-token-validity}") long refreshTokenValidity,
+            @Value("${jwt.signing.key-files:}") List<String> keyFiles,
+            ObjectMapper objectMapper) {
+        this.algorithm = algorithm.toUpperCase();
+        this.retention = Duration.ofSeconds(Math.max(accessTokenValidity, refreshTokenValidity));
+        this.objectMapper = objectMapper;
+        this.hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+
+        this.configuredKeys = !isHmac() && !keyFiles.isEmpty();
+
+        if (isHmac()) {
+            this.state = buildState(List.of(new SigningKey(null, hmacKey, hmacKey, Instant.now())));
+        } else if (configuredKeys) {
+            List<SigningKey> keys = new ArrayList<>();
+            for (String keyFile : keyFiles) {
+                keys.add(load(Path.of(keyFile.trim())));
+            }
+            this.state = buildState(keys);
+            log.info("Loaded {} JWT signing key(s), signing with {}", keys.size(), keys.get(0).keyId());
+        } else {
+            this.state = buildState(List.of(generate()));
+            log.warn("No jwt.signing.key-files configured: signing with an in-memory {} key. Tokens will not "
+                    + "survive a restart and other instances will reject them; use this in development only",
+                    algorithm);
+        }
+    }
+
+    public boolean isHmac() {
+        return HMAC.equals(algorithm);
+    }
+
+    public SigningKey getActiveKey() {
+        return state.active;
+    }
+
+    /**
+     * Returns the verification key for a token's {@code kid} header, or
+     * {@code null} if the key is unknown or has been retired.
+     */
+    public Key getVerificationKey(String keyId) {
+        if (keyId == null) {
+            // Tokens issued before key ids were introduced
+            return isHmac() ? hmacKey : null;
+        }
+        SigningKey key = state.byId.get(keyId);
+        return key != null ? key.verificationKey() : null;
+    }
+
+    public byte[] getJwksJson() {
+        return state.jwksJson;
+    }
+
+    public String getJwksETag() {
+        return state.jwksETag;
+    }
+
+    @Scheduled(initialDelayString = "${jwt.signing.rotation-interval:86400}",
+            fixedDelayString = "${jwt.signing.rotation-interval:86400}", timeUnit = TimeUnit.SECONDS)
+    public void rotate() {
+        // Configured keys are rotated by changing jwt.signing.key-files
+        if (isHmac() || configuredKeys) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(retention);
+        List<SigningKey> keys = new ArrayList<>();
+        keys.add(generate());
+
+        // Keys are ordered newest first; each one stopped signing when its successor
+        // was created, and is kept until every token it signed has expired
+        Instant retiredAt = now;
+        for (SigningKey key : state.keys) {
+            if (retiredAt.isAfter(cutoff)) {
+                keys.add(key);
+            }
+            retiredAt = key.createdAt();
+        }
+        state = buildState(keys);
+        log.info("Rotated JWT signing key, {} key(s) in ring", keys.size());
+    }
+
+    private SigningKey generate() {
+        KeyPair pair = switch (algorithm) {
+            case "RS256" -> Jwts.SIG.RS256.keyPair().build();
+            case "ES256" -> Jwts.SIG.ES256.keyPair().build();
+            case "EDDSA" -> Jwks.CRV.Ed25519.keyPair().build();
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+        return new SigningKey(SecureTokenGenerator.nextToken(16), pair.getPrivate(), pair.getPublic(), Instant.now());
+    }
+
+    private SigningKey load(Path keyFile) {
+        try {
+            String pem = Files.readString(keyFile);
+            byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+            PrivateKey privateKey = KeyFactory.getInstance(keyAlgorithm())
+                    .generatePrivate(new PKCS8EncodedKeySpec(der));
+            // The thumbprint depends only on the public key, so every instance derives the same id
+            PrivateJwk<?, ?, ?> jwk = Jwks.builder().key(privateKey).idFromThumbprint().build();
+            return new SigningKey(jwk.getId(), privateKey, jwk.toPublicJwk().toKey(),
+                    Files.getLastModifiedTime(keyFile).toInstant());
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Could not load JWT signing key " + keyFile, e);
+        }
+    }
+
+    private String keyAlgorithm() {
+        return switch (algorithm) {
+            case "RS256" -> "RSA";
+            case "ES256" -> "EC";
+            case "EDDSA" -> "Ed25519";
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+    }
+
+    private State buildState(List<SigningKey> keys) {
+        Map<String, SigningKey> byId = new HashMap<>();
+        List<Map<String, ?>> jwks = new ArrayList<>();
+        for (SigningKey key : keys) {
+            if (key.keyId() == null) {
+                continue;
+            }
+            byId.put(key.keyId(), key);
+            jwks.add(Jwks.builder()
+                    .key((PublicKey) key.verificationKey())
+                    .id(key.keyId())
+                    .algorithm("EDDSA".equals(algorithm) ? "EdDSA" : algorithm)
+                    .publicKeyUse("sig")
+                    .build());
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Map.of("keys", jwks));
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            String eTag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+            return new State(List.copyOf(keys), keys.get(0), Map.copyOf(byId), json, eTag);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not build JWK Set", e);
+        }
+    }
+
+    public record SigningKey(String keyId, Key signingKey, Key verificationKey, Instant createdAt) {
+    }
+
+    private record State(List<SigningKey> keys, SigningKey active, Map<String, SigningKey> byId,
+            byte[] jwksJson, String jwksETag) {
+    }
+}
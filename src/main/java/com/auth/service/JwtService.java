@@ -1,12 +1,14 @@
 package com.auth.service;
 
+import com.auth.entity.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,8 +17,18 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_EMAIL_VERIFIED = "email_verified";
+    public static final String CLAIM_MFA_ENABLED = "mfa_enabled";
+    public static final String CLAIM_TOKEN_EPOCH = "epoch";
+    public static final String CLAIM_VERSION = "ver";
+    public static final String CLAIM_TOKEN_USE = "token_use";
+
+    public static final String TOKEN_USE_MFA_CHALLENGE = "mfa_challenge";
+
+    // Bump when the set or meaning of the access-token claims changes
+    private static final int ACCESS_TOKEN_VERSION = 1;
 
     @Value("${jwt.access-token-validity}")
     private Long accessTokenValidity;
@@ -27,9 +39,64 @@ public class JwtService {
     @Value("${jwt.issuer}")
     private String issuer;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${app.auth.mfa.challenge-validity:300}")
+    private long mfaChallengeValidity;
+
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        Key key = keyRing.getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Parses the token and verifies its signature and expiry exactly once.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new MalformedJwtException("JWT is empty");
+        }
+        VerifiedClaims cached = tokenCache.get(token);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        VerifiedClaims claims = VerifiedClaims.from(parser.parseSignedClaims(token).getPayload());
+        tokenCache.put(token, claims);
+        return claims;
+    }
+
+    /**
+     * Same as {@link #verify(String)} but returns {@code null} instead of throwing
+     * for tokens that fail verification.
+     */
+    public VerifiedClaims verifyOrNull(String token) {
+        try {
+            return verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
     public String extractUsername(String token) {
@@ -45,54 +112,111 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Forgets the cached verification result of a single token.
+     */
+    public void evictToken(String token) {
+        if (token != null && !token.isEmpty()) {
+            tokenCache.invalidate(token);
+        }
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Forgets the cached verification results of every token issued to a subject.
+     */
+    public void evictSubject(String subject) {
+        tokenCache.invalidateSubject(subject);
+    }
+
+    private Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public String generateAccessToken(UserDetails userDetails) {
+        if (userDetails instanceof User entity) {
+            userDetails = AuthUser.from(entity);
+        }
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), accessTokenValidity * 1000);
+        if (userDetails instanceof AuthUser user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLES, user.getRoles());
+            claims.put(CLAIM_EMAIL_VERIFIED, user.isEmailVerified());
+            claims.put(CLAIM_MFA_ENABLED, user.isMfaEnabled());
+            claims.put(CLAIM_TOKEN_EPOCH, user.getTokenEpoch());
+            claims.put(CLAIM_VERSION, ACCESS_TOKEN_VERSION);
+        }
+        return createToken(claims, subjectOf(userDetails), accessTokenValidity * 1000);
+    }
+
+    /**
+     * Issues the token that proves the password step of an MFA login succeeded.
+     * It is only accepted by {@code POST /auth/mfa/challenge}, never as an access token.
+     */
+    public String generateMfaChallengeToken(AuthUser user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_TOKEN_EPOCH, user.getTokenEpoch());
+        claims.put(CLAIM_TOKEN_USE, TOKEN_USE_MFA_CHALLENGE);
+        return createToken(claims, subjectOf(user), mfaChallengeValidity * 1000);
+    }
+
+    /**
+     * Access tokens carry no {@code token_use} claim; anything that does, such as
+     * an MFA challenge token, must not authenticate requests.
+     */
+    public static boolean isAccessToken(VerifiedClaims claims) {
+        return claims.getClaim(CLAIM_TOKEN_USE) == null;
+    }
+
+    public static boolean isMfaChallengeToken(VerifiedClaims claims) {
+        return TOKEN_USE_MFA_CHALLENGE.equals(claims.getClaim(CLAIM_TOKEN_USE));
+    }
+
+    public long getMfaChallengeValidity() {
+        return mfaChallengeValidity;
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), refreshTokenValidity * 1000);
+        return createToken(claims, subjectOf(userDetails), refreshTokenValidity * 1000);
+    }
+
+    // The subject must be the key CustomUserDetailsService looks users up by
+    private String subjectOf(UserDetails userDetails) {
+        if (userDetails instanceof User user) {
+            return user.getEmail();
+        }
+        if (userDetails instanceof AuthUser user) {
+            return user.getEmail();
+        }
+        return userDetails.getUsername();
     }
 
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
-        return Jwts.builder()
+        JwtKeyRing.SigningKey signingKey = keyRing.getActiveKey();
+        JwtBuilder builder = Jwts.builder();
+        if (signingKey.keyId() != null) {
+            builder = builder.header().keyId(signingKey.keyId()).and();
+        }
+        return builder
                 .claims(claims)
+                .id(SecureTokenGenerator.nextToken(16))
                 .subject(subject)
                 .issuer(issuer)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey.signingKey())
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        VerifiedClaims claims = verifyOrNull(token);
+        return claims != null && claims.getSubject().equals(subjectOf(userDetails)) && !claims.isExpired();
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        VerifiedClaims claims = verifyOrNull(token);
+        return claims != null && !claims.isExpired();
     }
 
     public String extractUserId(String token) {
@@ -111,4 +235,12 @@ public class JwtService {
     public long getRefreshTokenValidity() {
         return refreshTokenValidity;
     }
+
+    /**
+     * Whether authenticated requests should be served from the access-token claims
+     * alone instead of reloading the user from the database.
+     */
+    public boolean isStatelessPrincipal() {
+        return statelessPrincipal;
+    }
 }
\ No newline at end of file
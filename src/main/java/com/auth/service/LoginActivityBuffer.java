@@ -0,0 +1,122 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for {@code users.last_login_at}.
+ *
+ * <p>Logins record their timestamp here instead of saving the user, so the
+ * common login path takes no write lock. Repeated logins of the same user
+ * coalesce into one pending value, and pending values are written with batched
+ * UPDATEs every {@code flush-interval} or as soon as {@code max-pending} users
+ * are waiting, and once more on shutdown. A crash loses at most one interval of
+ * last-login timestamps.
+ */
+@Component
+public class LoginActivityBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginActivityBuffer.class);
+
+    // Never moves the timestamp backwards if an older value is flushed late
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final int maxPending;
+
+    private final int batchSize;
+
+    // user id -> latest login not yet written
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Counter flushed;
+
+    public LoginActivityBuffer(
+            JdbcTemplate jdbcTemplate,
+            TaskScheduler taskScheduler,
+            @Value("${app.auth.login-activity.max-pending:1000}") int maxPending,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+
+        Gauge.builder("login.activity.pending", pending, Map::size)
+                .description("Users whose last login has not been written yet")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("login.activity.flushed")
+                .description("Last-login timestamps written to the database")
+                .register(meterRegistry);
+    }
+
+    public void recordLogin(Long userId, LocalDateTime loginAt) {
+        if (userId == null) {
+            return;
+        }
+        pending.merge(userId, loginAt, (a, b) -> a.isAfter(b) ? a : b);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            // Flush off the request thread; the login itself never waits for the write
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.login-activity.flush-interval:5000}")
+    public synchronized void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            // Only drop the entry if no newer login replaced it in the meantime
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                Timestamp at = Timestamp.valueOf(entry.getValue());
+                batch.add(new Object[]{at, entry.getKey(), at});
+            }
+        }
+
+        try {
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, batch.subList(from, Math.min(from + batchSize, batch.size())));
+            }
+            flushed.increment(batch.size());
+        } catch (RuntimeException e) {
+            // Put the values back so the next flush retries them
+            for (Object[] row : batch) {
+                pending.merge((Long) row[1], ((Timestamp) row[0]).toLocalDateTime(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+            log.warn("Could not write {} last-login timestamps, will retry", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
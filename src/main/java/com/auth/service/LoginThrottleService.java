@@ -0,0 +1,217 @@
+package com.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Brute-force protection that runs before any credential is checked.
+ *
+ * <p>Failed logins drain a token bucket per email and per client IP. Once a bucket
+ * is empty, further attempts for that key are refused for a delay that doubles
+ * with every extra failure, up to the configured window. Refused attempts never
+ * reach the database or the password hasher. An email that keeps failing past
+ * {@code lockout-threshold} is locked out for {@code lockout-minutes}, or until its
+ * password is reset. Failures for emails without an account only count against
+ * the client IP, so spraying random emails cannot evict the buckets of real
+ * accounts. Buckets are evicted once idle for a full window, so memory stays
+ * bounded.
+ */
+@Service
+public class LoginThrottleService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginThrottleService.class);
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    private final int emailAttempts;
+
+    private final int ipAttempts;
+
+    private final long windowNanos;
+
+    private final long baseDelayNanos;
+
+    private final int lockoutThreshold;
+
+    private final long lockoutNanos;
+
+    private final Cache<String, Bucket> buckets;
+
+    private final Cache<String, Long> lockedUntil;
+
+    private final Counter rejected;
+
+    private final Counter lockouts;
+
+    public LoginThrottleService(
+            @Value("${app.auth.rate-limit.login-attempts:5}") int emailAttempts,
+            @Value("${app.auth.rate-limit.ip-login-attempts:50}") int ipAttempts,
+            @Value("${app.auth.rate-limit.window-minutes:15}") long windowMinutes,
+            @Value("${app.auth.rate-limit.base-delay-seconds:1}") long baseDelaySeconds,
+            @Value("${app.auth.rate-limit.lockout-threshold:20}") int lockoutThreshold,
+            @Value("${app.auth.rate-limit.lockout-minutes:60}") long lockoutMinutes,
+            @Value("${app.auth.rate-limit.max-tracked-keys:100000}") long maxTrackedKeys,
+            MeterRegistry meterRegistry) {
+        this.emailAttempts = emailAttempts;
+        this.ipAttempts = ipAttempts;
+        this.windowNanos = TimeUnit.MINUTES.toNanos(windowMinutes);
+        this.baseDelayNanos = TimeUnit.SECONDS.toNanos(baseDelaySeconds);
+        this.lockoutThreshold = lockoutThreshold;
+        this.lockoutNanos = TimeUnit.MINUTES.toNanos(lockoutMinutes);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMinutes(windowMinutes))
+                .build();
+        this.lockedUntil = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(Duration.ofMinutes(lockoutMinutes))
+                .build();
+
+        Gauge.builder("login.throttle.tracked", buckets, Cache::estimatedSize)
+                .description("Emails and client IPs with recent failed logins")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("login.throttle.rejected")
+                .description("Login attempts refused before checking credentials")
+                .register(meterRegistry);
+        this.lockouts = Counter.builder("login.throttle.lockouts")
+                .description("Accounts locked out after repeated failed logins")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws LoginThrottledException if the email or client IP is currently throttled
+     */
+    public void checkAllowed(String email, String clientIp) {
+        long now = System.nanoTime();
+        long blockedFor = Math.max(lockedFor(emailKey(email), now),
+                Math.max(blockedFor(emailKey(email), now), blockedFor(ipKey(clientIp), now)));
+        if (blockedFor > 0) {
+            rejected.increment();
+            throw new LoginThrottledException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(blockedFor + 999_999_999L)));
+        }
+    }
+
+    /**
+     * Records a failed login. The email is only tracked when it belongs to an
+     * account; once it reaches {@code lockout-threshold} failures it is locked out,
+     * and the first caller to set the lock wins, so concurrent failures past the
+     * threshold lock it exactly once.
+     */
+    public void recordFailure(String email, String clientIp) {
+        long now = System.nanoTime();
+        if (clientIp != null) {
+            bucket(ipKey(clientIp), ipAttempts).fail(now);
+        }
+        if (!userDetailsService.isKnownEmail(email)) {
+            return;
+        }
+        String key = emailKey(email);
+        int failures = bucket(key, emailAttempts).fail(now);
+        if (failures >= lockoutThreshold && lockedUntil.asMap().putIfAbsent(key, now + lockoutNanos) == null) {
+            // Count again from zero once the lockout expires
+            buckets.invalidate(key);
+            lockouts.increment();
+            log.warn("Locked out {} for {} min after {} failed logins",
+                    email, TimeUnit.NANOSECONDS.toMinutes(lockoutNanos), failures);
+        }
+    }
+
+    /**
+     * Forgets the failures and any lockout recorded for an email, after a
+     * successful login or a password reset.
+     */
+    public void reset(String email) {
+        String key = emailKey(email);
+        buckets.invalidate(key);
+        lockedUntil.invalidate(key);
+    }
+
+    private long lockedFor(String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Long until = lockedUntil.getIfPresent(key);
+        return until != null ? Math.max(0, until - now) : 0;
+    }
+
+    private long blockedFor(String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        Bucket bucket = buckets.getIfPresent(key);
+        return bucket != null ? bucket.blockedFor(now) : 0;
+    }
+
+    private Bucket bucket(String key, int capacity) {
+        return buckets.get(key, k -> new Bucket(capacity));
+    }
+
+    private static String emailKey(String email) {
+        return email != null ? "email:" + email.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String ipKey(String clientIp) {
+        return clientIp != null ? "ip:" + clientIp : null;
+    }
+
+    /**
+     * Token bucket updated with compare-and-set on an immutable state, so
+     * concurrent failures for the same key never block each other.
+     */
+    private final class Bucket {
+
+        private final int capacity;
+
+        private final AtomicReference<State> state;
+
+        Bucket(int capacity) {
+            this.capacity = capacity;
+            this.state = new AtomicReference<>(new State(capacity, System.nanoTime(), 0, 0, 0L));
+        }
+
+        long blockedFor(long now) {
+            return Math.max(0, state.get().blockedUntil - now);
+        }
+
+        int fail(long now) {
+            while (true) {
+                State current = state.get();
+                double refill = (double) (now - current.refilledAt) / windowNanos * capacity;
+                double tokens = Math.min(capacity, current.tokens + refill);
+                int strikes = current.strikes;
+                long blockedUntil = current.blockedUntil;
+
+                if (tokens >= 1) {
+                    tokens -= 1;
+                } else {
+                    // Progressive delay: base, 2x base, 4x base, ... capped at the window
+                    strikes++;
+                    long delay = baseDelayNanos << Math.min(strikes - 1, 30);
+                    blockedUntil = now + Math.min(delay > 0 ? delay : windowNanos, windowNanos);
+                }
+
+                State next = new State(tokens, now, strikes, current.failures + 1, blockedUntil);
+                if (state.compareAndSet(current, next)) {
+                    return next.failures;
+                }
+            }
+        }
+    }
+
+    private record State(double tokens, long refilledAt, int strikes, int failures, long blockedUntil) {
+    }
+}
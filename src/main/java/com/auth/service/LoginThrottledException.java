@@ -0,0 +1,20 @@
+package com.auth.service;
+
+/**
+ * Thrown when a login is refused because the email or client IP has too many
+ * recent failures. Mapped to {@code 429 Too Many Requests} with a
+ * {@code Retry-After} header.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many failed login attempts, please try again later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -52,23 +52,13 @@ public class MfaService {
 
     public Set<String> generateBackupCodes() {
         Set<String> backupCodes = new HashSet<>();
-        for (int i = 0; i < backupCodesCount; i++) {
-            backupCodes.add(generateBackupCode());
+        while (backupCodes.size() < backupCodesCount) {
+            // 8-character alphanumeric backup code
+            backupCodes.add(SecureTokenGenerator.nextBackupCode(8));
         }
         return backupCodes;
     }
 
-    private String generateBackupCode() {
-        // Generate 8-character alphanumeric backup code
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < 8; i++) {
-            int index = (int) (Math.random() * chars.length());
-            code.append(chars.charAt(index));
-        }
-        return code.toString();
-    }
-
     public boolean verifyBackupCode(String code, Set<String> backupCodes) {
         return backupCodes.contains(code);
     }
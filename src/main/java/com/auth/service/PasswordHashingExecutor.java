@@ -0,0 +1,118 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU-sized pool that runs password hashing and verification off the servlet
+ * threads. The queue is bounded; once it is full new work is rejected with
+ * {@link PasswordHashingSaturatedException} instead of piling up, so a burst of
+ * logins can only tie up a bounded number of request threads and cheap
+ * endpoints keep their latency.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+
+    private final Timer hashTimer;
+
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(
+            @Value("${app.auth.password.hashing.threads:0}") int threads,
+            @Value("${app.auth.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.auth.password.hashing.retry-after:1}") long retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait")
+                .description("Time password hashing tasks spend queued")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent hashing or verifying a password")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @throws PasswordHashingSaturatedException if the pool and its queue are full
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingSaturatedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.auth.service;
+
+/**
+ * Thrown when the password hashing pool cannot accept more work. Mapped to
+ * {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingSaturatedException(long retryAfterSeconds) {
+        super("Too many concurrent password operations, please retry shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
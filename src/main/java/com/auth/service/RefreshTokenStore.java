@@ -0,0 +1,43 @@
+package com.auth.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Storage for refresh tokens in {@link SplitToken} form. Selected with
+ * {@code app.auth.refresh-token.store}: {@code jpa} (default) keeps them in the
+ * {@code refresh_tokens} table, {@code embedded} in memory backed by a local
+ * append-only log.
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Stores a new token for the user and returns its {@code "<id>.<secret>"} value.
+     */
+    String issue(Long userId, LocalDateTime expiresAt);
+
+    /**
+     * Revokes the token if it is known, unexpired and not yet revoked.
+     *
+     * @return the owner of the token if this call revoked it, empty otherwise;
+     * of two concurrent calls for the same token at most one gets the owner
+     */
+    Optional<Long> revoke(String token, String reason);
+
+    /**
+     * Returns the owner of the token if it is known, unexpired and not revoked,
+     * without revoking it.
+     */
+    Optional<Long> findOwner(String token);
+
+    /**
+     * Revokes the token and issues a replacement for the same owner as one step:
+     * either both happen or neither does.
+     *
+     * @return the new {@code "<id>.<secret>"} value, or empty if the token was not
+     * live; of two concurrent rotations of the same token at most one succeeds
+     */
+    Optional<String> rotate(String token, String reason, LocalDateTime expiresAt);
+
+    void revokeAll(Long userId, String reason);
+}
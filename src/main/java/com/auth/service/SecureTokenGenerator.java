@@ -0,0 +1,109 @@
+package com.auth.service;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Source of every random token, token id and backup code the service hands out.
+ *
+ * <p>Each thread gets its own DRBG instance, so concurrent signups and refreshes
+ * never queue on the process-wide {@code SecureRandom} behind
+ * {@link java.util.UUID#randomUUID()}. The DRBG is drawn from in blocks, which
+ * amortizes its per-call cost over many tokens. Tokens are raw random bytes
+ * encoded as unpadded base64url, with no intermediate hex or UUID formatting.
+ */
+public final class SecureTokenGenerator {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final char[] BACKUP_CODE_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    // Largest multiple of the alphabet size that fits in a byte; higher bytes are
+    // rejected so every character is equally likely
+    private static final int BACKUP_CODE_LIMIT = 256 - 256 % BACKUP_CODE_ALPHABET.length;
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final ThreadLocal<Source> SOURCE = ThreadLocal.withInitial(Source::new);
+
+    private SecureTokenGenerator() {
+    }
+
+    /**
+     * Returns {@code bytes} random bytes as an unpadded base64url string.
+     */
+    public static String nextToken(int bytes) {
+        byte[] raw = new byte[bytes];
+        SOURCE.get().nextBytes(raw);
+        return ENCODER.encodeToString(raw);
+    }
+
+    /**
+     * Returns a code of {@code length} characters drawn uniformly from A-Z and 0-9.
+     */
+    public static String nextBackupCode(int length) {
+        Source source = SOURCE.get();
+        char[] code = new char[length];
+        for (int i = 0; i < length; ) {
+            int b = source.nextByte() & 0xFF;
+            if (b < BACKUP_CODE_LIMIT) {
+                code[i++] = BACKUP_CODE_ALPHABET[b % BACKUP_CODE_ALPHABET.length];
+            }
+        }
+        return new String(code);
+    }
+
+    private static final class Source {
+
+        private final SecureRandom random = newRandom();
+
+        private final byte[] block = new byte[BLOCK_SIZE];
+
+        private int position = BLOCK_SIZE;
+
+        void nextBytes(byte[] out) {
+            if (out.length > BLOCK_SIZE) {
+                random.nextBytes(out);
+                return;
+            }
+            int copied = 0;
+            while (copied < out.length) {
+                if (position == BLOCK_SIZE) {
+                    refill();
+                }
+                int n = Math.min(out.length - copied, BLOCK_SIZE - position);
+                System.arraycopy(block, position, out, copied, n);
+                // Never hand out the same bytes twice
+                Arrays.fill(block, position, position + n, (byte) 0);
+                position += n;
+                copied += n;
+            }
+        }
+
+        byte nextByte() {
+            if (position == BLOCK_SIZE) {
+                refill();
+            }
+            byte b = block[position];
+            block[position++] = 0;
+            return b;
+        }
+
+        private void refill() {
+            random.nextBytes(block);
+            position = 0;
+        }
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
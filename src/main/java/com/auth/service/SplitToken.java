@@ -0,0 +1,77 @@
+package com.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Opaque token in selector/validator form, {@code "<id>.<secret>"}.
+ *
+ * <p>The id is the primary key of the stored row, so a lookup never needs an
+ * index on the token itself. Only the SHA-256 of the secret is stored and it is
+ * compared in constant time, so a leaked table cannot be replayed and lookups
+ * do not leak timing.
+ */
+public record SplitToken(long id, String secret) {
+
+    private static final int SECRET_BYTES = 32;
+
+    public static String newSecret() {
+        return SecureTokenGenerator.nextToken(SECRET_BYTES);
+    }
+
+    /**
+     * Returns the value to store for a secret.
+     */
+    public static String hash(String secret) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest(secret));
+    }
+
+    /**
+     * Returns {@code null} if the value is not of the form {@code "<id>.<secret>"}.
+     */
+    public static SplitToken parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        try {
+            return new SplitToken(Long.parseLong(token, 0, dot, 10), token.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean matches(String storedHash) {
+        if (storedHash == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(digest(secret), Base64.getUrlDecoder().decode(storedHash));
+    }
+
+    public boolean matches(byte[] storedDigest) {
+        return storedDigest != null && MessageDigest.isEqual(digest(secret), storedDigest);
+    }
+
+    public String value() {
+        return id + "." + secret;
+    }
+
+    @Override
+    public String toString() {
+        // Never log the secret
+        return "SplitToken[id=" + id + "]";
+    }
+
+    static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
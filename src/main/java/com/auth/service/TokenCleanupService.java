@@ -0,0 +1,131 @@
+package com.auth.service;
+
+import com.auth.repository.EmailVerificationTokenRepository;
+import com.auth.repository.PasswordResetTokenRepository;
+import com.auth.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Deletes expired rows from the token tables, and revoked refresh tokens once
+ * their audit retention has passed.
+ *
+ * <p>Rows are removed in chunks of {@code chunk-size}, each in its own short
+ * transaction, walking the primary key so no chunk rescans rows an earlier one
+ * skipped. Between chunks the reaper sleeps for {@code pause} so logins and
+ * refreshes can take the SQLite write lock. Reported as
+ * {@code token.cleanup.purged} and {@code token.cleanup.duration}, tagged by table.
+ */
+@Service
+@ConditionalOnProperty(name = "app.auth.token-cleanup.enabled", havingValue = "true", matchIfMissing = true)
+public class TokenCleanupService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenCleanupService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final EmailVerificationTokenRepository emailVerificationTokenRepository;
+
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Pageable chunk;
+
+    private final long pauseMillis;
+
+    private final long revokedRetention;
+
+    public TokenCleanupService(
+            RefreshTokenRepository refreshTokenRepository,
+            EmailVerificationTokenRepository emailVerificationTokenRepository,
+            PasswordResetTokenRepository passwordResetTokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.auth.token-cleanup.chunk-size:500}") int chunkSize,
+            @Value("${app.auth.token-cleanup.pause:50}") long pauseMillis,
+            @Value("${app.auth.token-cleanup.revoked-retention:604800}") long revokedRetention) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.emailVerificationTokenRepository = emailVerificationTokenRepository;
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunk = PageRequest.of(0, chunkSize);
+        this.pauseMillis = pauseMillis;
+        this.revokedRetention = revokedRetention;
+    }
+
+    @Scheduled(initialDelayString = "${app.auth.token-cleanup.interval:3600000}",
+            fixedDelayString = "${app.auth.token-cleanup.interval:3600000}")
+    public void purgeExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime revokedBefore = now.minusSeconds(revokedRetention);
+
+        purge("refresh_tokens",
+                afterId -> refreshTokenRepository.findPurgeableIds(afterId, now, revokedBefore, chunk),
+                refreshTokenRepository::deleteByIds);
+        purge("email_verification_tokens",
+                afterId -> emailVerificationTokenRepository.findPurgeableIds(afterId, now, chunk),
+                emailVerificationTokenRepository::deleteByIds);
+        purge("password_reset_tokens",
+                afterId -> passwordResetTokenRepository.findPurgeableIds(afterId, now, chunk),
+                passwordResetTokenRepository::deleteByIds);
+    }
+
+    private void purge(String table, Function<Long, List<Long>> nextChunk, Function<List<Long>, Integer> delete) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long purged = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                long from = afterId;
+                List<Long> ids = transactionTemplate.execute(status -> {
+                    List<Long> found = nextChunk.apply(from);
+                    if (!found.isEmpty()) {
+                        delete.apply(found);
+                    }
+                    return found;
+                });
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                purged += ids.size();
+                afterId = ids.get(ids.size() - 1);
+                if (ids.size() < chunk.getPageSize()) {
+                    break;
+                }
+                // Let other writers through before taking the write lock again
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sample.stop(meterRegistry.timer("token.cleanup.duration", "table", table));
+            Counter.builder("token.cleanup.purged")
+                    .description("Expired or revoked token rows deleted")
+                    .tag("table", table)
+                    .register(meterRegistry)
+                    .increment(purged);
+        }
+        if (purged > 0) {
+            log.info("Purged {} rows from {}", purged, table);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.auth.service;
+
+import com.auth.entity.User;
+import com.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tracks the per-user token epoch that every access token is stamped with.
+ * Advancing a user's epoch invalidates all of their outstanding access tokens at
+ * once. Current epochs are kept in a primitive in-memory map that is filled
+ * lazily from the database, so checking a token costs a hash probe.
+ */
+@Service
+public class TokenEpochService {
+
+    // Returned for users that no longer exist so that their tokens never match
+    private static final long UNKNOWN_USER = Long.MAX_VALUE;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LongLongMap epochs = new LongLongMap();
+
+    /**
+     * Checks the epoch embedded in a verified access token. Tokens that carry no
+     * user id predate per-user claims and are left to the other checks; a missing
+     * epoch counts as the initial epoch.
+     */
+    public boolean isCurrent(VerifiedClaims claims) {
+        if (!(claims.getClaim(JwtService.CLAIM_USER_ID) instanceof Number userId)) {
+            return true;
+        }
+        long tokenEpoch = claims.getClaim(JwtService.CLAIM_TOKEN_EPOCH) instanceof Number epoch
+                ? epoch.longValue() : 0L;
+        return isCurrent(userId.longValue(), tokenEpoch);
+    }
+
+    public boolean isCurrent(long userId, long tokenEpoch) {
+        return tokenEpoch >= current(userId);
+    }
+
+    public long current(long userId) {
+        long epoch = epochs.get(userId);
+        if (epoch != LongLongMap.MISSING) {
+            return epoch;
+        }
+        long loaded = userRepository.findTokenEpochById(userId).orElse(UNKNOWN_USER);
+        return loaded == UNKNOWN_USER ? loaded : epochs.putMax(userId, loaded);
+    }
+
+    /**
+     * Increments the user's epoch on the entity. The caller is responsible for
+     * saving it; the in-memory value is only updated once the surrounding
+     * transaction commits, so a rollback cannot reject freshly issued tokens.
+     */
+    public void advance(User user) {
+        long epoch = user.getTokenEpoch() + 1;
+        user.setTokenEpoch(epoch);
+
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    epochs.putMax(userId, epoch);
+                }
+            });
+        } else {
+            epochs.putMax(userId, epoch);
+        }
+    }
+
+    /**
+     * Open-addressing long-to-long map. Keys and values are interleaved in a single
+     * array so readers can use an optimistic stamp without seeing mismatched tables
+     * during a resize. Epochs only ever grow, so writes keep the larger value.
+     */
+    private static final class LongLongMap {
+
+        static final long MISSING = Long.MIN_VALUE;
+
+        // User ids are never 0, so 0 marks an empty slot
+        private static final long EMPTY = 0L;
+
+        private final StampedLock lock = new StampedLock();
+
+        private long[] table = new long[2 * 1024];
+
+        private int size;
+
+        long get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            long value = find(table, key);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(table, key);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        long putMax(long key, long value) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 4 > table.length) {
+                    resize();
+                }
+                int mask = (table.length >> 1) - 1;
+                int slot = mix(key) & mask;
+                while (true) {
+                    long existing = table[slot << 1];
+                    if (existing == EMPTY) {
+                        table[slot << 1] = key;
+                        table[(slot << 1) + 1] = value;
+                        size++;
+                        return value;
+                    }
+                    if (existing == key) {
+                        long merged = Math.max(table[(slot << 1) + 1], value);
+                        table[(slot << 1) + 1] = merged;
+                        return merged;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static long find(long[] table, long key) {
+            int mask = (table.length >> 1) - 1;
+            int slot = mix(key) & mask;
+            while (true) {
+                long existing = table[slot << 1];
+                if (existing == key) {
+                    return table[(slot << 1) + 1];
+                }
+                if (existing == EMPTY) {
+                    return MISSING;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            long[] old = table;
+            long[] resized = new long[old.length << 1];
+            int mask = (resized.length >> 1) - 1;
+            for (int i = 0; i < old.length; i += 2) {
+                long key = old[i];
+                if (key != EMPTY) {
+                    int slot = mix(key) & mask;
+                    while (resized[slot << 1] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    resized[slot << 1] = key;
+                    resized[(slot << 1) + 1] = old[i + 1];
+                }
+            }
+            table = resized;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
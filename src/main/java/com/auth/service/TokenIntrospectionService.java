@@ -0,0 +1,89 @@
+package com.auth.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides whether an access token is currently usable and describes it in the
+ * RFC 7662 introspection format. Shares the single-parse verification path and
+ * the revocation checks with {@link com.auth.config.JwtAuthenticationFilter}.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private static final Map<String, Object> INACTIVE = Map.of("active", false);
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    /**
+     * Returns the verified claims of a usable access token, or {@code null} if the
+     * token is invalid, expired, revoked, predates the user's current epoch or is
+     * not an access token at all.
+     */
+    public VerifiedClaims validateAccessToken(String token) {
+        VerifiedClaims claims = jwtService.verifyOrNull(token);
+        if (claims == null || claims.getSubject() == null
+                || !JwtService.isAccessToken(claims)
+                || tokenRevocationIndex.isRevoked(claims.getId())
+                || !tokenEpochService.isCurrent(claims)) {
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * Returns the verified claims of an unused, current MFA challenge token, or
+     * {@code null}.
+     */
+    public VerifiedClaims validateMfaChallengeToken(String token) {
+        VerifiedClaims claims = jwtService.verifyOrNull(token);
+        if (claims == null || !JwtService.isMfaChallengeToken(claims)
+                || tokenRevocationIndex.isRevoked(claims.getId())
+                || !tokenEpochService.isCurrent(claims)) {
+            return null;
+        }
+        return claims;
+    }
+
+    public Map<String, Object> introspect(String token) {
+        VerifiedClaims claims = validateAccessToken(token);
+        if (claims == null) {
+            return INACTIVE;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", true);
+        result.put("token_type", "Bearer");
+        result.put("sub", claims.getSubject());
+        result.put("iss", claims.getIssuer());
+        result.put("jti", claims.getId());
+        if (claims.getIssuedAt() != null) {
+            result.put("iat", claims.getIssuedAt().getEpochSecond());
+        }
+        result.put("exp", claims.getExpiresAt().getEpochSecond());
+        result.putAll(claims.getCustomClaims());
+        return result;
+    }
+
+    /**
+     * Introspects every token of a batch on the calling thread, so one request
+     * cannot occupy more than one core; results keep the order of the input.
+     * Verification is cheap and repeated tokens are served from the cache.
+     */
+    public List<Map<String, Object>> introspect(List<String> tokens) {
+        return tokens.stream()
+                .map(this::introspect)
+                .toList();
+    }
+}
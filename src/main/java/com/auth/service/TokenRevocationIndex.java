@@ -0,0 +1,204 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory denylist of revoked access-token ids ({@code jti}).
+ *
+ * <p>Lookups first go through a Bloom filter so the common case, a token that was
+ * never revoked, costs a few hash probes. Only on a Bloom hit is the exact set
+ * consulted. Every entry expires together with the token it revokes, and the Bloom
+ * filter is split into two generations that rotate once per access-token lifetime,
+ * so nothing outlives the tokens it describes. Both structures are bounded by
+ * {@code jwt.revocation.max-entries} and reported as {@code jwt.revocation.*} gauges.
+ */
+@Component
+public class TokenRevocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    private final int maxEntries;
+
+    private final int bloomBits;
+
+    private final int bloomHashes;
+
+    private final long generationMillis;
+
+    // jti -> expiry in epoch millis
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter current;
+
+    private volatile BloomFilter previous;
+
+    private volatile long generationStartedAt = System.currentTimeMillis();
+
+    public TokenRevocationIndex(
+            @Value("${jwt.revocation.max-entries:100000}") int maxEntries,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${jwt.access-token-validity}") long accessTokenValidity,
+            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        // Standard Bloom sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        this.bloomBits = (int) Math.max(64,
+                Math.ceil(-maxEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.bloomHashes = Math.max(1, (int) Math.round((double) bloomBits / maxEntries * Math.log(2)));
+        this.generationMillis = accessTokenValidity * 1000;
+        this.current = new BloomFilter(bloomBits, bloomHashes);
+        this.previous = new BloomFilter(bloomBits, bloomHashes);
+
+        Gauge.builder("jwt.revocation.entries", revoked, ConcurrentHashMap::size)
+                .description("Revoked access tokens that have not expired yet")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.capacity", () -> maxEntries)
+                .description("Maximum number of revoked access tokens held in memory")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.bloom.bytes", () -> 2L * current.sizeInBytes())
+                .description("Memory used by both Bloom filter generations")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        long hash = hash(tokenId);
+        if (!current.mightContain(hash) && !previous.mightContain(hash)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revokes a token until its natural expiry.
+     *
+     * @return {@code false} if the index is full and the revocation could not be
+     * recorded; callers must then fall back to a coarser mechanism
+     */
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return true;
+        }
+        if (revoked.size() >= maxEntries && !revoked.containsKey(tokenId)) {
+            log.warn("Access-token revocation index is full ({} entries)", maxEntries);
+            return false;
+        }
+        current.put(hash(tokenId));
+        revoked.put(tokenId, expiresAt.toEpochMilli());
+        return true;
+    }
+
+    /**
+     * Revokes a token only if it is not revoked yet, so that of concurrent calls
+     * for the same id exactly one succeeds. Used to make single-use tokens single-use.
+     *
+     * @return {@code true} if this call revoked the token; {@code false} if it was
+     * already revoked, has expired, or the index is full
+     */
+    public boolean claim(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return false;
+        }
+        if (revoked.size() >= maxEntries) {
+            log.warn("Access-token revocation index is full ({} entries)", maxEntries);
+            return false;
+        }
+        // Bloom bit first, so isRevoked sees the entry as soon as the map does
+        current.put(hash(tokenId));
+        return revoked.putIfAbsent(tokenId, expiresAt.toEpochMilli()) == null;
+    }
+
+    /**
+     * Undoes a {@link #claim} whose token turned out not to be used, for example
+     * because the code presented with it was wrong.
+     */
+    public void release(String tokenId) {
+        if (tokenId != null) {
+            revoked.remove(tokenId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sweep-interval:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        // Everything in the previous generation was added at least one token
+        // lifetime ago, so the tokens it guards have expired
+        if (now - generationStartedAt >= generationMillis) {
+            previous = current;
+            current = new BloomFilter(bloomBits, bloomHashes);
+            generationStartedAt = now;
+        }
+    }
+
+    private static long hash(String tokenId) {
+        // 64-bit FNV-1a; the two halves seed the double hashing in BloomFilter
+        long h = 0xcbf29ce484222325L;
+        for (byte b : tokenId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+
+        private final int bits;
+
+        private final int hashes;
+
+        BloomFilter(int bits, int hashes) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+            this.bits = bits;
+            this.hashes = hashes;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value;
+                while (((value = words.get(word)) & mask) == 0
+                        && !words.compareAndSet(word, value, value | mask)) {
+                    // retry until the bit is visible as set
+                }
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+    }
+}
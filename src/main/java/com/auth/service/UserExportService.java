@@ -0,0 +1,155 @@
+package com.auth.service;
+
+import com.auth.entity.RefreshToken;
+import com.auth.repository.RefreshTokenRepository;
+import com.auth.repository.UserRepository;
+import com.auth.repository.UserSummaryView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Lists and exports users by keyset pagination on the primary key.
+ *
+ * <p>Each page is read in its own short read-only transaction, which the SQLite
+ * profile serves from a reader connection. No transaction stays open for the
+ * whole export, so the WAL can still be checkpointed and logins never wait on
+ * it. Only one page is held in memory at a time. Users are read as column
+ * projections, never as entities. Roles take one extra query per page. OAuth
+ * providers and active sessions are only read when asked for, at one more query
+ * per page each. Sessions come from the {@code refresh_tokens} table, so they
+ * are empty with the embedded refresh-token store.
+ */
+@Service
+public class UserExportService {
+
+    public static final String INCLUDE_OAUTH_PROVIDERS = "oauthProviders";
+
+    public static final String INCLUDE_SESSIONS = "sessions";
+
+    private final UserRepository userRepository;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int pageSize;
+
+    public UserExportService(
+            UserRepository userRepository,
+            RefreshTokenRepository refreshTokenRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.auth.user-export.page-size:500}") int pageSize) {
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns up to {@code limit} users with an id greater than {@code afterId}.
+     */
+    public List<Map<String, Object>> listUsers(long afterId, int limit, Set<String> include) {
+        return readPage(afterId, limit, include);
+    }
+
+    /**
+     * Passes every user, in id order, to {@code sink}; returns the number exported.
+     */
+    public long exportUsers(Set<String> include, Consumer<Map<String, Object>> sink) {
+        long exported = 0;
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> page = readPage(afterId, pageSize, include);
+            page.forEach(sink);
+            exported += page.size();
+            if (page.size() < pageSize) {
+                return exported;
+            }
+            afterId = (Long) page.get(page.size() - 1).get("id");
+        }
+    }
+
+    private List<Map<String, Object>> readPage(long afterId, int limit, Set<String> include) {
+        return readOnlyTransaction.execute(status -> {
+            List<UserSummaryView> users = userRepository.findSummariesAfter(afterId, PageRequest.of(0, limit));
+            if (users.isEmpty()) {
+                return List.<Map<String, Object>>of();
+            }
+            List<Long> ids = users.stream().map(UserSummaryView::getId).toList();
+
+            Map<Long, Set<String>> roles = groupByUser(userRepository.findRolesByUserIds(ids));
+            Map<Long, Set<String>> oauthProviders = include.contains(INCLUDE_OAUTH_PROVIDERS)
+                    ? groupByUser(userRepository.findOauthProvidersByUserIds(ids)) : null;
+            Map<Long, List<Map<String, Object>>> sessions = include.contains(INCLUDE_SESSIONS)
+                    ? sessionsByUser(ids) : null;
+
+            List<Map<String, Object>> page = new ArrayList<>(users.size());
+            for (UserSummaryView user : users) {
+                Map<String, Object> row = toMap(user);
+                row.put("roles", roles.getOrDefault(user.getId(), Set.of()));
+                if (oauthProviders != null) {
+                    row.put("oauthProviders", oauthProviders.getOrDefault(user.getId(), Set.of()));
+                }
+                if (sessions != null) {
+                    row.put("sessions", sessions.getOrDefault(user.getId(), List.of()));
+                }
+                page.add(row);
+            }
+            return page;
+        });
+    }
+
+    private Map<Long, List<Map<String, Object>>> sessionsByUser(List<Long> userIds) {
+        Map<Long, List<Map<String, Object>>> sessions = new HashMap<>();
+        for (RefreshToken token : refreshTokenRepository.findValidTokensByUserIds(userIds, LocalDateTime.now())) {
+            Map<String, Object> session = new LinkedHashMap<>();
+            session.put("id", token.getId());
+            session.put("createdAt", token.getCreatedAt());
+            session.put("expiresAt", token.getExpiresAt());
+            session.put("userAgent", token.getUserAgent());
+            session.put("ipAddress", token.getIpAddress());
+            // The association is lazy, so this reads the foreign key without loading the user
+            sessions.computeIfAbsent(token.getUser().getId(), id -> new ArrayList<>()).add(session);
+        }
+        return sessions;
+    }
+
+    private static Map<Long, Set<String>> groupByUser(List<Object[]> pairs) {
+        Map<Long, Set<String>> grouped = new HashMap<>();
+        for (Object[] pair : pairs) {
+            grouped.computeIfAbsent((Long) pair[0], id -> new TreeSet<>()).add((String) pair[1]);
+        }
+        return grouped;
+    }
+
+    private static Map<String, Object> toMap(UserSummaryView user) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", user.getId());
+        row.put("username", user.getUsername());
+        row.put("email", user.getEmail());
+        row.put("firstName", user.getFirstName());
+        row.put("lastName", user.getLastName());
+        row.put("emailVerified", user.isEmailVerified());
+        row.put("enabled", user.isEnabled());
+        row.put("accountNonLocked", user.isAccountNonLocked());
+        row.put("mfaEnabled", user.isMfaEnabled());
+        row.put("createdAt", user.getCreatedAt());
+        row.put("updatedAt", user.getUpdatedAt());
+        row.put("lastLoginAt", user.getLastLoginAt());
+        return row;
+    }
+}
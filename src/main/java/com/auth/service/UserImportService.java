@@ -0,0 +1,426 @@
+package com.auth.service;
+
+import com.auth.config.OffloadingPasswordEncoder;
+import com.auth.dto.SignupRequest;
+import com.auth.dto.UserImportRecord;
+import com.auth.entity.User;
+import com.auth.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Creates users in bulk from a CSV or NDJSON stream, for migrating tenants in.
+ *
+ * <p>Input is read line by line and handled in chunks of {@code chunk-size}
+ * records, so memory use does not grow with the input. Each record is checked
+ * with the same rules as {@link AuthService#signup}. Plain passwords of a chunk
+ * are hashed in parallel on a dedicated fork-join pool, leaving the login
+ * hashing pool alone; records that bring a {@code passwordHash} are stored as
+ * they are. A chunk is inserted in one transaction, which Hibernate sends as
+ * JDBC batches.
+ *
+ * <p>Progress is reported through a callback: one event per rejected record and
+ * one checkpoint per committed chunk. A checkpoint is the number of the last
+ * record handled; passing it back as {@code skip} resumes an interrupted import
+ * after that record. No emails are sent and no tokens are issued.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    // Hashes the password encoder can verify: {id}-prefixed, or the unprefixed BCrypt of older rows
+    private static final Pattern ENCODED_PASSWORD =
+            Pattern.compile("\\{(bcrypt|argon2|pbkdf2)}\\S+|\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+
+    private final UserRepository userRepository;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final CustomUserDetailsService userDetailsService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ForkJoinPool hashingPool;
+
+    private final int chunkSize;
+
+    private final Counter imported;
+
+    private final Counter failed;
+
+    public UserImportService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            Validator validator,
+            ObjectMapper objectMapper,
+            CustomUserDetailsService userDetailsService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.auth.user-import.chunk-size:500}") int chunkSize,
+            @Value("${app.auth.user-import.hashing-threads:0}") int hashingThreads) {
+        this.userRepository = userRepository;
+        // Hash on the import's own pool rather than queueing behind logins
+        this.passwordEncoder = passwordEncoder instanceof OffloadingPasswordEncoder offloading
+                ? offloading.getDelegate() : passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.userDetailsService = userDetailsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashingPool = new ForkJoinPool(hashingThreads > 0 ? hashingThreads
+                : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = chunkSize;
+        this.imported = Counter.builder("user.import.records")
+                .description("Users created by bulk import")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.failed = Counter.builder("user.import.records")
+                .description("Bulk import records rejected")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports every record after the first {@code skip} and returns the totals.
+     *
+     * @param events receives {@code {record, email, error}} for each rejected record
+     *               and {@code {checkpoint, imported, failed}} after each chunk
+     */
+    public Map<String, Object> importUsers(Reader input, Format format, long skip,
+            Consumer<Map<String, Object>> events) throws IOException {
+        RecordReader reader = new RecordReader(new BufferedReader(input), format);
+        Progress progress = new Progress();
+        progress.checkpoint = skip;
+
+        List<Entry> chunk = new ArrayList<>(chunkSize);
+        Entry entry;
+        while ((entry = reader.next()) != null) {
+            if (entry.number <= skip) {
+                continue;
+            }
+            chunk.add(entry);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, progress, events);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress, events);
+        }
+
+        log.info("Bulk import finished at record {}: {} imported, {} failed",
+                progress.checkpoint, progress.imported, progress.failed);
+        Map<String, Object> summary = progress.toMap();
+        summary.put("done", true);
+        return summary;
+    }
+
+    private void importChunk(List<Entry> chunk, Progress progress, Consumer<Map<String, Object>> events) {
+        for (Entry entry : chunk) {
+            if (entry.error == null) {
+                entry.error = validate(entry.record);
+            }
+        }
+        rejectDuplicates(chunk);
+
+        List<Entry> accepted = chunk.stream().filter(entry -> entry.error == null).toList();
+        hashPasswords(accepted);
+
+        if (!accepted.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        userRepository.saveAll(accepted.stream().map(UserImportService::toUser).toList()));
+            } catch (DataIntegrityViolationException e) {
+                // Lost a race with a concurrent signup; find the culprits one at a time
+                for (Entry entry : accepted) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> userRepository.save(toUser(entry)));
+                    } catch (DataIntegrityViolationException duplicate) {
+                        entry.error = AuthService.duplicateSignup(duplicate).getMessage();
+                    }
+                }
+            }
+        }
+
+        for (Entry entry : chunk) {
+            if (entry.error == null) {
+                progress.imported++;
+                imported.increment();
+                userDetailsService.evict(entry.record.getEmail());
+            } else {
+                progress.failed++;
+                failed.increment();
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("record", entry.number);
+                error.put("email", entry.record != null ? entry.record.getEmail() : null);
+                error.put("error", entry.error);
+                events.accept(error);
+            }
+        }
+        progress.checkpoint = chunk.get(chunk.size() - 1).number;
+        events.accept(progress.toMap());
+    }
+
+    /**
+     * Applies the signup request's constraints; the password ones only to plain passwords.
+     */
+    private String validate(UserImportRecord record) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(record.getUsername());
+        request.setEmail(record.getEmail());
+        request.setPassword(record.getPassword());
+        request.setFirstName(record.getFirstName());
+        request.setLastName(record.getLastName());
+
+        boolean hashed = record.getPasswordHash() != null;
+        for (String property : List.of("username", "email", "password", "firstName", "lastName")) {
+            if (hashed && property.equals("password")) {
+                continue;
+            }
+            Set<ConstraintViolation<SignupRequest>> violations = validator.validateProperty(request, property);
+            if (!violations.isEmpty()) {
+                return violations.iterator().next().getMessage();
+            }
+        }
+        if (hashed && !ENCODED_PASSWORD.matcher(record.getPasswordHash()).matches()) {
+            return "Unsupported password hash format";
+        }
+        return null;
+    }
+
+    /**
+     * Rejects records whose normalized email or username is already taken, by an
+     * existing user or by an earlier record of the same chunk. One query per key.
+     */
+    private void rejectDuplicates(List<Entry> chunk) {
+        List<Entry> valid = chunk.stream().filter(entry -> entry.error == null).toList();
+        if (valid.isEmpty()) {
+            return;
+        }
+        Set<String> takenEmails = new HashSet<>(userRepository.findEmailKeysIn(
+                valid.stream().map(entry -> User.normalizeKey(entry.record.getEmail())).toList()));
+        Set<String> takenUsernames = new HashSet<>(userRepository.findUsernameKeysIn(
+                valid.stream().map(entry -> User.normalizeKey(entry.record.getUsername())).toList()));
+
+        for (Entry entry : valid) {
+            if (!takenEmails.add(User.normalizeKey(entry.record.getEmail()))) {
+                entry.error = "Email already registered";
+            } else if (!takenUsernames.add(User.normalizeKey(entry.record.getUsername()))) {
+                entry.error = "Username already taken";
+            }
+        }
+    }
+
+    private void hashPasswords(List<Entry> entries) {
+        List<Entry> plain = entries.stream().filter(entry -> entry.record.getPasswordHash() == null).toList();
+        if (plain.isEmpty()) {
+            return;
+        }
+        try {
+            // A parallel stream started inside the pool runs on the pool's workers
+            hashingPool.submit(() -> plain.parallelStream()
+                    .forEach(entry -> entry.record.setPasswordHash(passwordEncoder.encode(entry.record.getPassword()))))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hashing imported passwords failed", e.getCause());
+        }
+    }
+
+    private static User toUser(Entry entry) {
+        UserImportRecord record = entry.record;
+        User user = new User();
+        user.setUsername(record.getUsername());
+        user.setEmail(record.getEmail());
+        user.setPassword(record.getPasswordHash());
+        user.setFirstName(record.getFirstName());
+        user.setLastName(record.getLastName());
+        user.setEmailVerified(record.isEmailVerified());
+        if (record.isEmailVerified()) {
+            user.setEmailVerifiedAt(LocalDateTime.now());
+        }
+        return user;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    private static final class Entry {
+
+        private final long number;
+
+        private final UserImportRecord record;
+
+        private String error;
+
+        private Entry(long number, UserImportRecord record, String error) {
+            this.number = number;
+            this.record = record;
+            this.error = error;
+        }
+    }
+
+    private static final class Progress {
+
+        private long checkpoint;
+
+        private long imported;
+
+        private long failed;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("checkpoint", checkpoint);
+            map.put("imported", imported);
+            map.put("failed", failed);
+            return map;
+        }
+    }
+
+    /**
+     * Turns non-blank input lines into numbered records. A CSV stream starts with
+     * a header naming its columns; quoted fields may contain commas and doubled
+     * quotes but not line breaks.
+     */
+    private final class RecordReader {
+
+        private final BufferedReader reader;
+
+        private final Format format;
+
+        private Map<String, Integer> columns;
+
+        private long number;
+
+        private RecordReader(BufferedReader reader, Format format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        private Entry next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            if (format == Format.CSV && columns == null) {
+                columns = new HashMap<>();
+                List<String> header = splitCsv(line);
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+                }
+                return next();
+            }
+
+            number++;
+            try {
+                return new Entry(number, format == Format.CSV ? parseCsv(line) : parseJson(line), null);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                return new Entry(number, null, "Malformed record");
+            }
+        }
+
+        private UserImportRecord parseJson(String line) throws JsonProcessingException {
+            UserImportRecord record = objectMapper.readValue(line, UserImportRecord.class);
+            if (record == null) {
+                throw new IllegalArgumentException("Not a JSON object");
+            }
+            return record;
+        }
+
+        private UserImportRecord parseCsv(String line) {
+            List<String> fields = splitCsv(line);
+            UserImportRecord record = new UserImportRecord();
+            record.setUsername(field(fields, "username"));
+            record.setEmail(field(fields, "email"));
+            record.setPassword(field(fields, "password"));
+            record.setPasswordHash(field(fields, "passwordhash"));
+            record.setFirstName(field(fields, "firstname"));
+            record.setLastName(field(fields, "lastname"));
+            record.setEmailVerified(Boolean.parseBoolean(field(fields, "emailverified")));
+            return record;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
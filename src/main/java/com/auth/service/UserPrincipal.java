@@ -0,0 +1,102 @@
+package com.auth.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal rebuilt from the claims of a verified access token, so
+ * authenticated requests do not need to load the {@link com.auth.entity.User}
+ * entity. Controllers that need the full entity resolve it through
+ * {@link CustomUserDetailsService#loadUser(org.springframework.security.core.Authentication)}.
+ */
+public final class UserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final List<GrantedAuthority> authorities;
+    private final boolean emailVerified;
+    private final boolean mfaEnabled;
+
+    public UserPrincipal(Long id, String email, Collection<String> roles, boolean emailVerified,
+            boolean mfaEnabled) {
+        this.id = id;
+        this.email = email;
+        this.authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        this.emailVerified = emailVerified;
+        this.mfaEnabled = mfaEnabled;
+    }
+
+    /**
+     * Builds a principal from access-token claims, or returns {@code null} when the
+     * token was not issued with the principal claims (e.g. by an older version).
+     */
+    public static UserPrincipal fromClaims(VerifiedClaims claims) {
+        if (!(claims.getClaim(JwtService.CLAIM_USER_ID) instanceof Number userId)
+                || !(claims.getClaim(JwtService.CLAIM_ROLES) instanceof Collection<?> roles)) {
+            return null;
+        }
+        return new UserPrincipal(
+                userId.longValue(),
+                claims.getSubject(),
+                roles.stream().map(String::valueOf).toList(),
+                Boolean.TRUE.equals(claims.getClaim(JwtService.CLAIM_EMAIL_VERIFIED)),
+                Boolean.TRUE.equals(claims.getClaim(JwtService.CLAIM_MFA_ENABLED)));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+
+    public boolean isMfaEnabled() {
+        return mfaEnabled;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package com.auth.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have already been checked
+ * by {@link JwtService#verify(String)}. Holding on to this object lets callers
+ * read claims without parsing or verifying the token again.
+ */
+public final class VerifiedClaims {
+
+    /** Request attribute under which the filter exposes the claims of the current request. */
+    public static final String REQUEST_ATTRIBUTE = "com.auth.service.VerifiedClaims";
+
+    private static final Set<String> REGISTERED_CLAIMS = Set.of(
+            Claims.SUBJECT, Claims.ISSUER, Claims.ISSUED_AT, Claims.EXPIRATION,
+            Claims.NOT_BEFORE, Claims.AUDIENCE, Claims.ID);
+
+    private final String id;
+    private final String subject;
+    private final String issuer;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final Map<String, Object> customClaims;
+
+    // Header values derived once when the token is verified; cached tokens reuse them
+    private final String userIdHeader;
+    private final String rolesHeader;
+
+    private VerifiedClaims(String id, String subject, String issuer, Instant issuedAt, Instant expiresAt,
+            Map<String, Object> customClaims) {
+        this.id = id;
+        this.subject = subject;
+        this.issuer = issuer;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.customClaims = customClaims;
+        this.userIdHeader = customClaims.get(JwtService.CLAIM_USER_ID) instanceof Number userId
+                ? userId.toString()
+                : null;
+        this.rolesHeader = customClaims.get(JwtService.CLAIM_ROLES) instanceof Collection<?> roles
+                ? roles.stream().map(String::valueOf).collect(Collectors.joining(","))
+                : "";
+    }
+
+    static VerifiedClaims from(Claims claims) {
+        Map<String, Object> custom = new HashMap<>();
+        for (Map.Entry<String, Object> entry : claims.entrySet()) {
+            if (!REGISTERED_CLAIMS.contains(entry.getKey())) {
+                custom.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new VerifiedClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.getIssuer(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableMap(custom));
+    }
+
+    /**
+     * Returns the token id ({@code jti}), or {@code null} for tokens issued without one.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Map<String, Object> getCustomClaims() {
+        return customClaims;
+    }
+
+    public Object getClaim(String name) {
+        return customClaims.get(name);
+    }
+
+    /**
+     * Returns the user id claim formatted for the {@code X-User-Id} header, or
+     * {@code null} for tokens without one.
+     */
+    public String getUserIdHeader() {
+        return userIdHeader;
+    }
+
+    /**
+     * Returns the roles claim formatted for the {@code X-User-Roles} header, as a
+     * comma-separated list.
+     */
+    public String getRolesHeader() {
+        return rolesHeader;
+    }
+
+    public boolean isExpired() {
+        return isExpiredAt(Instant.now());
+    }
+
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,94 @@
+package com.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bounded cache of already verified access tokens, keyed by a SHA-256 digest of
+ * the compact token so raw tokens are never kept in memory. Entries expire with
+ * the token they describe and are evicted by size using Caffeine's W-TinyLFU
+ * policy. Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * under the name {@code jwt.verified-tokens}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+
+    private final Cache<String, VerifiedClaims> cache;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.enabled:true}") boolean enabled,
+            @Value("${jwt.cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    public VerifiedClaims get(String token) {
+        return enabled ? cache.getIfPresent(digest(token)) : null;
+    }
+
+    public void put(String token, VerifiedClaims claims) {
+        if (enabled && claims.getExpiresAt() != null) {
+            cache.put(digest(token), claims);
+        }
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+
+    /**
+     * Drops every cached token of the given subject, so the next request for any of
+     * them goes through full verification and the revocation checks again.
+     */
+    public void invalidateSubject(String subject) {
+        cache.asMap().values().removeIf(claims -> subject.equals(claims.getSubject()));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedClaims claims, long currentTime) {
+            long remaining = Duration.between(Instant.now(), claims.getExpiresAt()).toNanos();
+            return Math.max(remaining, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.auth.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordEncoderCalibratorTests {
+
+    @Test
+    void pbkdf2HashesVerifyOnInstancesWithOtherLatencyTargets() {
+        String hash = calibrator("pbkdf2", 1).createEncoder().encode("SecurePass123!");
+        PasswordEncoder other = calibrator("pbkdf2", 200).createEncoder();
+
+        assertTrue(hash.startsWith("{pbkdf2}"));
+        assertTrue(other.matches("SecurePass123!", hash));
+        assertFalse(other.upgradeEncoding(hash));
+    }
+
+    private static PasswordEncoderCalibrator calibrator(String algorithm, long targetLatencyMillis) {
+        PasswordEncoderCalibrator calibrator = new PasswordEncoderCalibrator();
+        ReflectionTestUtils.setField(calibrator, "algorithm", algorithm);
+        ReflectionTestUtils.setField(calibrator, "targetLatencyMillis", targetLatencyMillis);
+        ReflectionTestUtils.setField(calibrator, "calibrate", true);
+        ReflectionTestUtils.setField(calibrator, "pbkdf2Iterations", 310_000);
+        return calibrator;
+    }
+}
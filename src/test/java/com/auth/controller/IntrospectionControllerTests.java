@@ -0,0 +1,60 @@
+package com.auth.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/introspection-test.sqlite")
+@AutoConfigureMockMvc
+class IntrospectionControllerTests {
+
+    private static final String BODY = "{\"tokens\":[\"not-a-token\"]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void introspectionClient(DynamicPropertyRegistry registry) {
+        registry.add("app.auth.introspection.clients.resource-server",
+                () -> "{bcrypt}" + new BCryptPasswordEncoder(4).encode("client-secret"));
+    }
+
+    @Test
+    void anonymousCallersAreRejected() throws Exception {
+        mockMvc.perform(post("/auth/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void wrongClientSecretIsRejected() throws Exception {
+        mockMvc.perform(post("/auth/introspect/batch")
+                        .with(httpBasic("resource-server", "wrong-secret"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void registeredClientCanIntrospect() throws Exception {
+        mockMvc.perform(post("/auth/introspect/batch")
+                        .with(httpBasic("resource-server", "client-secret"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].active").value(false));
+    }
+}
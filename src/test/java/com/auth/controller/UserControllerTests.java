@@ -0,0 +1,105 @@
+package com.auth.controller;
+
+import com.auth.dto.AuthResponse;
+import com.auth.dto.SignupRequest;
+import com.auth.service.AuthService;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that account changes made through the controllers reach the database,
+ * by reading the row back after each request.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/user-controller-test.sqlite")
+@AutoConfigureMockMvc
+class UserControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+
+    private String accessToken;
+
+    @BeforeEach
+    void signUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        email = "profile" + suffix + "@example.com";
+        SignupRequest request = new SignupRequest();
+        request.setUsername("profile" + suffix);
+        request.setEmail(email);
+        request.setPassword("SecurePass123!");
+        request.setConfirmPassword("SecurePass123!");
+        AuthResponse response = authService.signup(request);
+        accessToken = response.getAccessToken();
+    }
+
+    @Test
+    void profileUpdateIsStored() throws Exception {
+        mockMvc.perform(put("/user/profile")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("firstName", "Ada")
+                        .param("lastName", "Lovelace"))
+                .andExpect(status().isOk());
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT first_name, last_name FROM users WHERE email = ?", email);
+        assertEquals("Ada", row.get("first_name"));
+        assertEquals("Lovelace", row.get("last_name"));
+    }
+
+    @Test
+    void emailChangeIsStored() throws Exception {
+        String newEmail = "changed-" + email;
+        mockMvc.perform(put("/user/email")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("newEmail", newEmail)
+                        .param("password", "SecurePass123!"))
+                .andExpect(status().isOk());
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT email_key, email_verified FROM users WHERE email = ?", newEmail);
+        assertEquals(newEmail, row.get("email_key"));
+        assertEquals(0, ((Number) row.get("email_verified")).intValue());
+    }
+
+    @Test
+    void mfaSetupIsStoredAndAdvancesTheTokenEpoch() throws Exception {
+        String secret = new DefaultSecretGenerator().generate();
+        String code = new DefaultCodeGenerator().generate(secret, Instant.now().getEpochSecond() / 30);
+
+        mockMvc.perform(post("/auth/mfa/verify")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("code", code)
+                        .param("secret", secret))
+                .andExpect(status().isOk());
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT mfa_enabled, mfa_secret, token_epoch FROM users WHERE email = ?", email);
+        assertEquals(1, ((Number) row.get("mfa_enabled")).intValue());
+        assertEquals(secret, row.get("mfa_secret"));
+        assertEquals(1L, ((Number) row.get("token_epoch")).longValue());
+    }
+}
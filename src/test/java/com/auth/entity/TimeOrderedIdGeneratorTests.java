@@ -0,0 +1,46 @@
+package com.auth.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTests {
+
+    private static final long MAX_SAFE_JSON_INTEGER = 1L << 53;
+
+    @Test
+    void idsIncreaseAndStayBelowTwoToTheFiftyThird() {
+        long previous = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long id = TimeOrderedIdGenerator.nextId();
+            assertTrue(id > previous, "ids must strictly increase");
+            assertTrue(id < MAX_SAFE_JSON_INTEGER, "ids must fit in a double");
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(TimeOrderedIdGenerator.nextId());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, ids.size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.auth.service;
+
+import com.auth.dto.SignupRequest;
+import com.auth.entity.User;
+import com.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that inserts go out as JDBC batches now that ids are assigned before
+ * the insert, by recording what is done with every prepared statement.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/batch-insert-test.sqlite")
+class AuthServiceBatchInsertTests {
+
+    private static final long MAX_SAFE_JSON_INTEGER = 1L << 53;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearLog() {
+        StatementLog.events.clear();
+    }
+
+    @Test
+    void signupSendsUserAndVerificationTokenAsBatches() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        SignupRequest request = new SignupRequest();
+        request.setUsername("batch" + suffix);
+        request.setEmail("batch" + suffix + "@example.com");
+        request.setPassword("SecurePass123!");
+        request.setConfirmPassword("SecurePass123!");
+
+        authService.signup(request);
+
+        for (String table : List.of("users", "email_verification_tokens")) {
+            assertTrue(StatementLog.count("addBatch", table) >= 1, table + " insert was not batched");
+            assertTrue(StatementLog.count("executeBatch", table) >= 1, table + " batch was not executed");
+            assertEquals(0, StatementLog.count("executeUpdate", table), table + " was inserted row by row");
+        }
+    }
+
+    @Test
+    void rowsOfOneTableShareASingleBatch() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            User user = new User();
+            user.setUsername("grouped" + suffix);
+            user.setEmail("grouped" + suffix + "@example.com");
+            user.setPassword("{bcrypt}not-a-real-hash");
+            users.add(user);
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> userRepository.saveAll(users));
+
+        assertEquals(3, StatementLog.count("addBatch", "users"));
+        assertEquals(1, StatementLog.count("executeBatch", "users"));
+        assertEquals(0, StatementLog.count("executeUpdate", "users"));
+
+        long previous = 0;
+        for (User user : users) {
+            assertTrue(user.getId() > previous, "ids must increase in insert order");
+            assertTrue(user.getId() < MAX_SAFE_JSON_INTEGER, "ids must fit in a double");
+            previous = user.getId();
+        }
+    }
+
+    /**
+     * Statement calls seen since the last clear, as "method table" pairs for inserts.
+     */
+    static final class StatementLog {
+
+        static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        static long count(String method, String table) {
+            String event = method + " " + table;
+            synchronized (events) {
+                return events.stream().filter(event::equals).count();
+            }
+        }
+
+        static void record(String method, String sql) {
+            String normalized = sql.trim().toLowerCase(Locale.ROOT);
+            if (normalized.startsWith("insert into ")) {
+                String table = normalized.substring("insert into ".length()).split("[\\s(]", 2)[0];
+                events.add(method + " " + table);
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementRecordingConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? recording(dataSource) : bean;
+                }
+            };
+        }
+
+        private static DataSource recording(DataSource target) {
+            return proxy(DataSource.class, target, (method, result, args) ->
+                    method.getName().equals("getConnection") ? recording((Connection) result) : result);
+        }
+
+        private static Connection recording(Connection target) {
+            return proxy(Connection.class, target, (method, result, args) ->
+                    method.getName().equals("prepareStatement")
+                            ? recording((PreparedStatement) result, (String) args[0]) : result);
+        }
+
+        private static PreparedStatement recording(PreparedStatement target, String sql) {
+            return proxy(PreparedStatement.class, target, (method, result, args) -> {
+                if (method.getName().equals("addBatch") || method.getName().equals("executeBatch")
+                        || method.getName().equals("executeUpdate")) {
+                    StatementLog.record(method.getName(), sql);
+                }
+                return result;
+            });
+        }
+
+        private interface ResultMapper {
+            Object map(Method method, Object result, Object[] args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, ResultMapper mapper) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return mapper.map(method, method.invoke(target, args), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth.service;
+
+import com.auth.dto.AuthResponse;
+import com.auth.dto.SignupRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/refresh-token-test.sqlite")
+class AuthServiceRefreshTokenTests {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+
+    private String refreshToken;
+
+    @BeforeEach
+    void signUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        email = "refresh" + suffix + "@example.com";
+        SignupRequest request = new SignupRequest();
+        request.setUsername("refresh" + suffix);
+        request.setEmail(email);
+        request.setPassword("SecurePass123!");
+        request.setConfirmPassword("SecurePass123!");
+        refreshToken = authService.signup(request).getRefreshToken();
+    }
+
+    @Test
+    void aRefreshTokenIsRotatedOnce() {
+        AuthResponse rotated = authService.refreshToken(refreshToken);
+
+        assertNotEquals(refreshToken, rotated.getRefreshToken());
+        assertTrue(refreshTokenStore.findOwner(rotated.getRefreshToken()).isPresent());
+        assertThrows(RuntimeException.class, () -> authService.refreshToken(refreshToken));
+    }
+
+    @Test
+    void aRefusedRotationDoesNotSpendTheToken() {
+        jdbcTemplate.update("UPDATE users SET enabled = 0 WHERE email = ?", email);
+        userDetailsService.evict(email);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> authService.refreshToken(refreshToken));
+        assertEquals("Account is disabled", e.getMessage());
+
+        jdbcTemplate.update("UPDATE users SET enabled = 1 WHERE email = ?", email);
+        userDetailsService.evict(email);
+        assertTrue(refreshTokenStore.findOwner(refreshToken).isPresent());
+        authService.refreshToken(refreshToken);
+    }
+}
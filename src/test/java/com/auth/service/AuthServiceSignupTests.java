@@ -0,0 +1,51 @@
+package com.auth.service;
+
+import com.auth.dto.SignupRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that duplicate signups are refused by the unique indexes on the
+ * normalized email and username keys.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:target/signup-test.sqlite")
+class AuthServiceSignupTests {
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void emailsDifferingOnlyInCaseAreDuplicates() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        authService.signup(signupRequest("first" + suffix, "dup" + suffix + "@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> authService.signup(signupRequest("second" + suffix, "DUP" + suffix + "@Example.com")));
+        assertEquals("Email already registered", e.getMessage());
+    }
+
+    @Test
+    void usernamesDifferingOnlyInCaseAreDuplicates() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        authService.signup(signupRequest("taken" + suffix, "one" + suffix + "@example.com"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> authService.signup(signupRequest("TAKEN" + suffix, "two" + suffix + "@example.com")));
+        assertEquals("Username already taken", e.getMessage());
+    }
+
+    private static SignupRequest signupRequest(String username, String email) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("SecurePass123!");
+        request.setConfirmPassword("SecurePass123!");
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoginThrottleServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginThrottleService throttle;
+
+    @BeforeEach
+    void setUp() {
+        // Generous email bucket, so only the lockout refuses attempts
+        throttle = new LoginThrottleService(1000, 1000, 15, 1, 20, 60, 1000, meterRegistry);
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        when(userDetailsService.isKnownEmail("user@example.com")).thenReturn(true);
+        ReflectionTestUtils.setField(throttle, "userDetailsService", userDetailsService);
+    }
+
+    @Test
+    void concurrentFailuresPastTheThresholdLockOnce() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 10; i++) {
+                    throttle.recordFailure("user@example.com", null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1.0, meterRegistry.get("login.throttle.lockouts").counter().count());
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> throttle.checkAllowed("user@example.com", null));
+        assertTrue(e.getRetryAfterSeconds() > 59 * 60 && e.getRetryAfterSeconds() <= 60 * 60);
+    }
+
+    @Test
+    void aLockoutIsSetOnceAndLiftedByReset() {
+        for (int i = 0; i < 25; i++) {
+            throttle.recordFailure("user@example.com", null);
+        }
+        assertEquals(1.0, meterRegistry.get("login.throttle.lockouts").counter().count());
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAllowed("User@Example.com", null));
+
+        throttle.reset("user@example.com");
+        assertDoesNotThrow(() -> throttle.checkAllowed("user@example.com", null));
+    }
+
+    @Test
+    void unknownEmailsAreNotTracked() {
+        for (int i = 0; i < 25; i++) {
+            throttle.recordFailure("nobody@example.com", "203.0.113.7");
+        }
+
+        assertEquals(0.0, meterRegistry.get("login.throttle.lockouts").counter().count());
+        assertDoesNotThrow(() -> throttle.checkAllowed("nobody@example.com", "198.51.100.1"));
+        assertEquals(1.0, meterRegistry.get("login.throttle.tracked").gauge().value());
+    }
+}
@@ -0,0 +1,48 @@
+package com.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationIndexTests {
+
+    private final Instant inFiveMinutes = Instant.now().plusSeconds(300);
+
+    @Test
+    void aTokenCanBeClaimedOnce() {
+        TokenRevocationIndex index = new TokenRevocationIndex(100, 0.001, 900, new SimpleMeterRegistry());
+
+        assertTrue(index.claim("challenge", inFiveMinutes));
+        assertFalse(index.claim("challenge", inFiveMinutes));
+        assertTrue(index.isRevoked("challenge"));
+    }
+
+    @Test
+    void aReleasedClaimCanBeTakenAgain() {
+        TokenRevocationIndex index = new TokenRevocationIndex(100, 0.001, 900, new SimpleMeterRegistry());
+
+        assertTrue(index.claim("challenge", inFiveMinutes));
+        index.release("challenge");
+        assertFalse(index.isRevoked("challenge"));
+        assertTrue(index.claim("challenge", inFiveMinutes));
+    }
+
+    @Test
+    void claimsFailWhenTheIndexIsFull() {
+        TokenRevocationIndex index = new TokenRevocationIndex(1, 0.001, 900, new SimpleMeterRegistry());
+
+        assertTrue(index.claim("first", inFiveMinutes));
+        assertFalse(index.claim("second", inFiveMinutes));
+    }
+
+    @Test
+    void expiredTokensCannotBeClaimed() {
+        TokenRevocationIndex index = new TokenRevocationIndex(100, 0.001, 900, new SimpleMeterRegistry());
+
+        assertFalse(index.claim("challenge", Instant.now().minusSeconds(1)));
+    }
+}